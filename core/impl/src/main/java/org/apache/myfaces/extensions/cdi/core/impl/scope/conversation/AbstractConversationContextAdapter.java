@@ -21,6 +21,7 @@ package org.apache.myfaces.extensions.cdi.core.impl.scope.conversation;
 import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.ConversationScoped;
 import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.ConversationConfig;
 import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.BeanEntry;
+import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.ContainerCapabilities;
 import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.WindowContextManager;
 
 import javax.enterprise.context.spi.Context;
@@ -29,6 +30,7 @@ import javax.enterprise.context.spi.CreationalContext;
 import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
 import java.lang.annotation.Annotation;
+import java.util.Map;
 
 /**
  * @author Gerhard Petracek
@@ -45,26 +47,18 @@ public abstract class AbstractConversationContextAdapter implements Context
 
     private boolean unscopeBeanEventEnable = false;
 
-    private static RuntimeException runtimeException = new RuntimeException();
-
-    //workaround for weld
-    private final boolean useFallback;
+    //false for containers like weld which don't call #get(Contextual) before the creation
+    private final boolean lookupBeforeCreationSupported;
 
     public AbstractConversationContextAdapter(BeanManager beanManager)
     {
-        this.beanManager = beanManager;
-
-        boolean useFallback = true;
-        for(StackTraceElement element : runtimeException.getStackTrace())
-        {
-            if(element.toString().contains("org.apache.webbeans."))
-            {
-                useFallback = false;
-                break;
-            }
-        }
+        this(beanManager, new DefaultContainerCapabilities(beanManager));
+    }
 
-        this.useFallback = useFallback;
+    public AbstractConversationContextAdapter(BeanManager beanManager, ContainerCapabilities containerCapabilities)
+    {
+        this.beanManager = beanManager;
+        this.lookupBeforeCreationSupported = containerCapabilities.isLookupBeforeCreationSupported();
     }
 
     /**
@@ -84,30 +78,35 @@ public abstract class AbstractConversationContextAdapter implements Context
     {
         if (component instanceof Bean)
         {
-            //workaround for weld - start
-            if(useFallback)
-            {
-                T scopedBean = get(component);
+            Bean<T> bean = ((Bean<T>) component);
 
-                if(scopedBean != null)
-                {
-                    return scopedBean;
-                }
-            }
-            //workaround for weld - end
+            Map<Bean<?>, Object> beanInstanceCache = resolveBeanInstanceCache();
 
-            lazyInitConversationConfig();
+            T beanInstance;
 
-            WindowContextManager windowContextManager = resolveWindowContextManager();
+            if(this.lookupBeforeCreationSupported)
+            {
+                BeanEntry<T> beanEntry = createBeanEntry(bean, creationalContext);
 
-            Bean<T> bean = ((Bean<T>) component);
+                scopeBeanEntry(resolveWindowContextManager(), beanEntry);
+
+                beanInstance = beanEntry.getBeanInstance();
+            }
+            else
+            {
+                //the container didn't check for an existing instance
+                beanInstance = getCachedBeanInstance(beanInstanceCache, bean);
 
-            BeanEntry<T> beanEntry = new ConversationBeanEntry<T>(creationalContext, bean,
-                    this.scopeBeanEventEnable, this.beanAccessEventEnable, this.unscopeBeanEventEnable);
+                if(beanInstance != null)
+                {
+                    return beanInstance;
+                }
 
-            scopeBeanEntry(windowContextManager, beanEntry);
+                beanInstance = resolveOrCreateBeanInstance(resolveWindowContextManager(), bean, creationalContext);
+            }
 
-            return beanEntry.getBeanInstance();
+            cacheBeanInstance(beanInstanceCache, bean, beanInstance);
+            return beanInstance;
         }
 
         Class invalidComponentClass = component.create(creationalContext).getClass();
@@ -137,15 +136,162 @@ public abstract class AbstractConversationContextAdapter implements Context
         if (component instanceof Bean)
         {
             Bean<T> bean = ((Bean<T>) component);
+
+            Map<Bean<?>, Object> beanInstanceCache = resolveBeanInstanceCache();
+
+            T cachedBeanInstance = getCachedBeanInstance(beanInstanceCache, bean);
+
+            if(cachedBeanInstance != null)
+            {
+                return cachedBeanInstance;
+            }
+
             WindowContextManager windowContextManager = resolveWindowContextManager();
 
             T foundBeanInstance = resolveBeanInstance(windowContextManager, bean);
 
+            if(foundBeanInstance != null)
+            {
+                cacheBeanInstance(beanInstanceCache, bean, foundBeanInstance);
+            }
             return foundBeanInstance;
         }
         throw new IllegalStateException(component.getClass() + " is no valid conversation scoped bean");
     }
 
+    /**
+     * Resolves an existing instance or scopes a new one.
+     * Can be overridden to do both in one pass (used for containers which don't look up existing instances).
+     *
+     * @param windowContextManager the current
+     * {@link org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.WindowContextManager}
+     * @param bean                descriptor of the requested bean
+     * @param creationalContext   context for creating the bean
+     * @return the existing or a new instance of the requested bean
+     */
+    protected <T> T resolveOrCreateBeanInstance(WindowContextManager windowContextManager,
+                                                Bean<T> bean,
+                                                CreationalContext<T> creationalContext)
+    {
+        T beanInstance = resolveBeanInstance(windowContextManager, bean);
+
+        if(beanInstance != null)
+        {
+            return beanInstance;
+        }
+
+        BeanEntry<T> beanEntry = createBeanEntry(bean, creationalContext);
+
+        scopeBeanEntry(windowContextManager, beanEntry);
+
+        return beanEntry.getBeanInstance();
+    }
+
+    /**
+     * @param bean              descriptor of the bean
+     * @param creationalContext context for creating the bean
+     * @return a new entry which creates the instance lazily
+     */
+    protected <T> BeanEntry<T> createBeanEntry(Bean<T> bean, CreationalContext<T> creationalContext)
+    {
+        lazyInitConversationConfig();
+
+        return new ConversationBeanEntry<T>(creationalContext, bean,
+                this.scopeBeanEventEnable, this.beanAccessEventEnable, this.unscopeBeanEventEnable);
+    }
+
+    private <T> T getCachedBeanInstance(Map<Bean<?>, Object> beanInstanceCache, Bean<T> bean)
+    {
+        if(beanInstanceCache == null)
+        {
+            return null;
+        }
+
+        Object cacheEntry = beanInstanceCache.get(bean);
+
+        if(cacheEntry == null)
+        {
+            return null;
+        }
+
+        //the cache is only invalidated for the current thread
+        //-> e.g. a parallel request might have ended the conversation in the meantime
+        T beanInstance = getValidBeanInstance(bean, cacheEntry);
+
+        if(beanInstance == null)
+        {
+            beanInstanceCache.remove(bean);
+        }
+        return beanInstance;
+    }
+
+    private <T> void cacheBeanInstance(Map<Bean<?>, Object> beanInstanceCache, Bean<T> bean, T beanInstance)
+    {
+        if(beanInstanceCache == null)
+        {
+            return;
+        }
+
+        Object cacheEntry = createBeanInstanceCacheEntry(bean, beanInstance);
+
+        if(cacheEntry != null)
+        {
+            beanInstanceCache.put(bean, cacheEntry);
+        }
+    }
+
+    private Map<Bean<?>, Object> resolveBeanInstanceCache()
+    {
+        lazyInitConversationConfig();
+
+        //every access has to be delegated to the bean-entry to fire the event
+        if(this.beanAccessEventEnable)
+        {
+            return null;
+        }
+        return getBeanInstanceCache();
+    }
+
+    /**
+     * Optional cache for the instances which were resolved during the current request.
+     * An implementation has to invalidate it as soon as a conversation gets ended or restarted.
+     *
+     * @return the cache of the current request or null if instances shouldn't be cached
+     */
+    protected Map<Bean<?>, Object> getBeanInstanceCache()
+    {
+        return null;
+    }
+
+    /**
+     * Creates the entry which gets stored in the cache returned by {@link #getBeanInstanceCache()}.
+     * An implementation can store the state which is needed by {@link #getValidBeanInstance} together with the
+     * instance.
+     *
+     * @param bean         descriptor of the bean
+     * @param beanInstance the resolved instance
+     * @return the entry for the cache or null if the instance shouldn't be cached
+     */
+    protected <T> Object createBeanInstanceCacheEntry(Bean<T> bean, T beanInstance)
+    {
+        return beanInstance;
+    }
+
+    /**
+     * Validates an entry of the cache returned by {@link #getBeanInstanceCache()} before it gets used.
+     * An implementation has to check the state of the conversation, because it might have been ended or restarted
+     * by a different thread.
+     *
+     * @param bean       descriptor of the bean
+     * @param cacheEntry the entry created by {@link #createBeanInstanceCacheEntry}
+     * @return the cached instance if it is still the scoped instance of the bean, null otherwise
+     */
+    protected <T> T getValidBeanInstance(Bean<T> bean, Object cacheEntry)
+    {
+        //noinspection unchecked
+        return (T)cacheEntry;
+    }
+
     /**
      * @return an instance of a custom (the default)
      * {@link org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.WindowContextManager}
@@ -38,7 +38,8 @@ class ConversationBeanEntry<T> implements BeanEntry<T>
 
     private final Bean<T> bean;
 
-    private T currentBeanInstance;
+    //volatile - a reset by a different thread invalidates cached instances (see AbstractConversationContextAdapter)
+    private volatile T currentBeanInstance;
 
     private CreationalContext<T> creationalContext;
 
@@ -89,6 +90,11 @@ class ConversationBeanEntry<T> implements BeanEntry<T>
         return this.currentBeanInstance;
     }
 
+    public T getCurrentBeanInstance()
+    {
+        return this.currentBeanInstance;
+    }
+
     public T resetBeanInstance()
     {
         T oldBeanInstance = this.currentBeanInstance;
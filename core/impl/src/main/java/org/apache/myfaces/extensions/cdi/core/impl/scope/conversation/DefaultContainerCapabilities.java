@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.core.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.ContainerCapabilities;
+
+import javax.enterprise.inject.spi.BeanManager;
+
+/**
+ * Detects the capabilities based on the implementation of the {@link BeanManager}.
+ * Unknown containers get the capabilities which are guaranteed by the specification.
+ *
+ * @author Gerhard Petracek
+ */
+public class DefaultContainerCapabilities implements ContainerCapabilities
+{
+    private static final String OPEN_WEB_BEANS_PACKAGE = "org.apache.webbeans.";
+
+    private final boolean lookupBeforeCreationSupported;
+
+    public DefaultContainerCapabilities(BeanManager beanManager)
+    {
+        this.lookupBeforeCreationSupported =
+                beanManager != null && beanManager.getClass().getName().startsWith(OPEN_WEB_BEANS_PACKAGE);
+    }
+
+    public boolean isLookupBeforeCreationSupported()
+    {
+        return this.lookupBeforeCreationSupported;
+    }
+}
@@ -33,6 +33,11 @@ public interface BeanEntry<T> extends Serializable
 
     T getBeanInstance();
 
+    /**
+     * @return the current instance without creating a new one - null if there is no instance (e.g. after a reset)
+     */
+    T getCurrentBeanInstance();
+
     /**
      * @return the old instance
      */
@@ -50,6 +50,12 @@ public interface ConfigParameter
 
     static final boolean DISABLE_INITIAL_REDIRECT_DEFAULT = true;
 
+    //it's evaluated at deployment time - therefore it has to be configured as system property
+    static final String REJECT_INVALID_CONVERSATION_SCOPED_BEANS =
+            CoreCodiConfigParameter.BASE_NAME + "REJECT_INVALID_CONVERSATION_SCOPED_BEANS";
+
+    static final boolean REJECT_INVALID_CONVERSATION_SCOPED_BEANS_DEFAULT = false;
+
     static final String CONVERSATION_TIMEOUT =
             CoreCodiConfigParameter.BASE_NAME + "CONVERSATION_TIMEOUT";
 
@@ -79,4 +85,51 @@ public interface ConfigParameter
             CoreCodiConfigParameter.BASE_NAME + "ENABLE_UNSCOPE_BEAN_EVENT";
 
     static final boolean ENABLE_UNSCOPE_BEAN_EVENT_DEFAULT = false;
+
+    //in seconds - 0 deactivates the background cleanup of expired window contexts and conversations
+    static final String BACKGROUND_CLEANUP_INTERVAL =
+            CoreCodiConfigParameter.BASE_NAME + "BACKGROUND_CLEANUP_INTERVAL";
+
+    static final int BACKGROUND_CLEANUP_INTERVAL_DEFAULT = 0;
+
+    //LRU, LFU, BEAN_COUNT or the class-name of a custom eviction policy
+    static final String WINDOW_CONTEXT_EVICTION_POLICY =
+            CoreCodiConfigParameter.BASE_NAME + "WINDOW_CONTEXT_EVICTION_POLICY";
+
+    static final String WINDOW_CONTEXT_EVICTION_POLICY_DEFAULT = "LRU";
+
+    //in KB - 0 deactivates the limit for the (estimated) size of the conversations of a session
+    static final String MAX_CONVERSATION_STORAGE_SIZE_PER_SESSION =
+            CoreCodiConfigParameter.BASE_NAME + "MAX_CONVERSATION_STORAGE_SIZE_PER_SESSION";
+
+    static final int MAX_CONVERSATION_STORAGE_SIZE_PER_SESSION_DEFAULT = 0;
+
+    //in KB - 0 deactivates the limit for the (estimated) size of the conversations of all sessions
+    static final String MAX_CONVERSATION_STORAGE_SIZE =
+            CoreCodiConfigParameter.BASE_NAME + "MAX_CONVERSATION_STORAGE_SIZE";
+
+    static final int MAX_CONVERSATION_STORAGE_SIZE_DEFAULT = 0;
+
+    //LRU or LARGEST_FIRST
+    static final String CONVERSATION_EVICTION_POLICY =
+            CoreCodiConfigParameter.BASE_NAME + "CONVERSATION_EVICTION_POLICY";
+
+    static final String CONVERSATION_EVICTION_POLICY_DEFAULT = "LRU";
+
+    //writes the window-id as hidden field into every UIForm instead of storing it in the component tree
+    static final String WINDOW_ID_STREAMING_ENABLED =
+            CoreCodiConfigParameter.BASE_NAME + "WINDOW_ID_STREAMING_ENABLED";
+
+    static final boolean WINDOW_ID_STREAMING_ENABLED_DEFAULT = false;
+
+    //number of base-62 characters of generated window-ids
+    static final String WINDOW_ID_LENGTH = CoreCodiConfigParameter.BASE_NAME + "WINDOW_ID_LENGTH";
+
+    static final int WINDOW_ID_LENGTH_DEFAULT = 3;
+
+    //in minutes - 0 deactivates the passivation of idle conversations
+    static final String CONVERSATION_PASSIVATION_IDLE_TIME =
+            CoreCodiConfigParameter.BASE_NAME + "CONVERSATION_PASSIVATION_IDLE_TIME";
+
+    static final int CONVERSATION_PASSIVATION_IDLE_TIME_DEFAULT = 0;
 }
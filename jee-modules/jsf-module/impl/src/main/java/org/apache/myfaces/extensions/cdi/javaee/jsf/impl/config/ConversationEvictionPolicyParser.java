@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.config;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.ConversationEvictionPolicy;
+
+/**
+ * @author Gerhard Petracek
+ */
+class ConversationEvictionPolicyParser implements ConfigValueParser<ConversationEvictionPolicy>
+{
+    public ConversationEvictionPolicy parse(String value)
+    {
+        for (ConversationEvictionPolicy conversationEvictionPolicy : ConversationEvictionPolicy.values())
+        {
+            if (conversationEvictionPolicy.name().equalsIgnoreCase(value.trim()))
+            {
+                return conversationEvictionPolicy;
+            }
+        }
+
+        throw new IllegalArgumentException(value + " isn't a supported conversation eviction policy. " +
+                "Use LRU or LARGEST_FIRST");
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.config;
 import org.apache.myfaces.extensions.cdi.core.api.config.Config;
 import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.WindowContextConfig;
 import org.apache.myfaces.extensions.cdi.core.api.projectstage.ProjectStage;
+import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
 import org.apache.myfaces.extensions.cdi.core.impl.utils.CodiUtils;
 import static org.apache.myfaces.extensions.cdi.javaee.jsf.api.ConfigParameter.*;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.DefaultWindowHandler;
@@ -30,8 +31,13 @@ import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowHandler;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.ConversationFactory;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowContextQuotaHandler;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowIdGenerator;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowContextEvictionPolicy;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.ConversationEvictionPolicy;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.JsfAwareConversationFactory;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.DefaultWindowContextQuotaHandler;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.DefaultWindowIdGenerator;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.ExpirationReaper;
 
 import javax.enterprise.context.Dependent;
 import javax.enterprise.context.ApplicationScoped;
@@ -138,6 +144,48 @@ public class DefaultWindowContextConfig extends JsfAwareWindowContextConfig
         return getAttribute(DISABLE_INITIAL_REDIRECT, Boolean.class);
     }
 
+    public int getBackgroundCleanupIntervalInSeconds()
+    {
+        lazyInit();
+        return getAttribute(BACKGROUND_CLEANUP_INTERVAL, Integer.class);
+    }
+
+    public int getMaxConversationStorageSizePerSessionInKB()
+    {
+        lazyInit();
+        return getAttribute(MAX_CONVERSATION_STORAGE_SIZE_PER_SESSION, Integer.class);
+    }
+
+    public int getMaxConversationStorageSizeInKB()
+    {
+        lazyInit();
+        return getAttribute(MAX_CONVERSATION_STORAGE_SIZE, Integer.class);
+    }
+
+    public ConversationEvictionPolicy getConversationEvictionPolicy()
+    {
+        lazyInit();
+        return getAttribute(CONVERSATION_EVICTION_POLICY, ConversationEvictionPolicy.class);
+    }
+
+    public boolean isWindowIdStreamingEnabled()
+    {
+        lazyInit();
+        return getAttribute(WINDOW_ID_STREAMING_ENABLED, Boolean.class);
+    }
+
+    public int getWindowIdLength()
+    {
+        lazyInit();
+        return getAttribute(WINDOW_ID_LENGTH, Integer.class);
+    }
+
+    public int getConversationPassivationIdleTimeInMinutes()
+    {
+        lazyInit();
+        return getAttribute(CONVERSATION_PASSIVATION_IDLE_TIME, Integer.class);
+    }
+
     public ConversationFactory getConversationFactory()
     {
         lazyInit();
@@ -162,6 +210,19 @@ public class DefaultWindowContextConfig extends JsfAwareWindowContextConfig
         return getAttribute(WindowContextQuotaHandler.class.getName(), WindowContextQuotaHandler.class);
     }
 
+    public WindowIdGenerator getWindowIdGenerator()
+    {
+        lazyInit();
+        return getAttribute(WindowIdGenerator.class.getName(), WindowIdGenerator.class);
+    }
+
+    public WindowContextEvictionPolicy createWindowContextEvictionPolicy()
+    {
+        lazyInit();
+        Class policyClass = getAttribute(WINDOW_CONTEXT_EVICTION_POLICY, Class.class);
+        return ClassUtils.tryToInstantiateClass(policyClass, WindowContextEvictionPolicy.class);
+    }
+
     public WindowHandler getWindowHandler()
     {
         lazyInit();
@@ -193,12 +254,19 @@ public class DefaultWindowContextConfig extends JsfAwareWindowContextConfig
         initDisableInitialRedirect(facesContext);
         initConversatonEvents(facesContext);
         initActionUrlEncoding(facesContext);
+        initBackgroundCleanupInterval(facesContext);
+        initConversationStorageLimits(facesContext);
+        initWindowIdStreaming(facesContext);
+        initWindowIdLength(facesContext);
+        initConversationPassivationIdleTime(facesContext);
 
         //init custom implementations
         initWindowContextManagerFactory(facesContext);
         initWindowContextFactory(facesContext);
         initConversationFactory(facesContext);
         initWindowContextQuotaHandler(facesContext);
+        initWindowIdGenerator(facesContext);
+        initWindowContextEvictionPolicy(facesContext);
         initWindowHandler(facesContext);
     }
 
@@ -275,6 +343,55 @@ public class DefaultWindowContextConfig extends JsfAwareWindowContextConfig
                 ADD_WINDOW_ID_TO_ACTION_URL_ENABLED_DEFAULT);
     }
 
+    private void initBackgroundCleanupInterval(FacesContext facesContext)
+    {
+        initConfig(facesContext,
+                BACKGROUND_CLEANUP_INTERVAL, new IntegerConfigValueParser(), BACKGROUND_CLEANUP_INTERVAL_DEFAULT);
+
+        int backgroundCleanupInterval = getAttribute(BACKGROUND_CLEANUP_INTERVAL, Integer.class);
+
+        //the reaper is application wide - it gets stopped by the GroupedConversationContextExtension
+        if(backgroundCleanupInterval > 0)
+        {
+            ExpirationReaper.start(backgroundCleanupInterval);
+        }
+    }
+
+    private void initConversationStorageLimits(FacesContext facesContext)
+    {
+        initConfig(facesContext,
+                MAX_CONVERSATION_STORAGE_SIZE_PER_SESSION,
+                new IntegerConfigValueParser(),
+                MAX_CONVERSATION_STORAGE_SIZE_PER_SESSION_DEFAULT);
+
+        initConfig(facesContext,
+                MAX_CONVERSATION_STORAGE_SIZE, new IntegerConfigValueParser(), MAX_CONVERSATION_STORAGE_SIZE_DEFAULT);
+
+        initConfig(facesContext,
+                CONVERSATION_EVICTION_POLICY,
+                new ConversationEvictionPolicyParser(),
+                new ConversationEvictionPolicyParser().parse(CONVERSATION_EVICTION_POLICY_DEFAULT));
+    }
+
+    private void initWindowIdStreaming(FacesContext facesContext)
+    {
+        initConfig(facesContext,
+                WINDOW_ID_STREAMING_ENABLED, new BooleanConfigValueParser(), WINDOW_ID_STREAMING_ENABLED_DEFAULT);
+    }
+
+    private void initWindowIdLength(FacesContext facesContext)
+    {
+        initConfig(facesContext, WINDOW_ID_LENGTH, new IntegerConfigValueParser(), WINDOW_ID_LENGTH_DEFAULT);
+    }
+
+    private void initConversationPassivationIdleTime(FacesContext facesContext)
+    {
+        initConfig(facesContext,
+                CONVERSATION_PASSIVATION_IDLE_TIME,
+                new IntegerConfigValueParser(),
+                CONVERSATION_PASSIVATION_IDLE_TIME_DEFAULT);
+    }
+
     /*
      * custom implementations
      */
@@ -310,6 +427,22 @@ public class DefaultWindowContextConfig extends JsfAwareWindowContextConfig
                    new DefaultWindowContextQuotaHandler(getMaxWindowContextCount()));
     }
 
+    private void initWindowIdGenerator(FacesContext facesContext)
+    {
+        initConfig(facesContext,
+                   WindowIdGenerator.class.getName(),
+                   new CustomImplementationParser<WindowIdGenerator>(),
+                   new DefaultWindowIdGenerator(getWindowIdLength()));
+    }
+
+    private void initWindowContextEvictionPolicy(FacesContext facesContext)
+    {
+        initConfig(facesContext,
+                   WINDOW_CONTEXT_EVICTION_POLICY,
+                   new WindowContextEvictionPolicyParser(),
+                   new WindowContextEvictionPolicyParser().parse(WINDOW_CONTEXT_EVICTION_POLICY_DEFAULT));
+    }
+
     private void initWindowHandler(FacesContext facesContext)
     {
         initConfig(facesContext,
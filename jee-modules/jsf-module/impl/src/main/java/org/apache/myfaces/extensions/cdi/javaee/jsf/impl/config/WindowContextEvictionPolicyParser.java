@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.config;
+
+import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.BeanCountWindowContextEvictionPolicy;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.LfuWindowContextEvictionPolicy;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.LruWindowContextEvictionPolicy;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowContextEvictionPolicy;
+
+/**
+ * @author Gerhard Petracek
+ */
+class WindowContextEvictionPolicyParser implements ConfigValueParser<Class>
+{
+    public Class parse(String value)
+    {
+        if("LRU".equalsIgnoreCase(value))
+        {
+            return LruWindowContextEvictionPolicy.class;
+        }
+
+        if("LFU".equalsIgnoreCase(value))
+        {
+            return LfuWindowContextEvictionPolicy.class;
+        }
+
+        if("BEAN_COUNT".equalsIgnoreCase(value))
+        {
+            return BeanCountWindowContextEvictionPolicy.class;
+        }
+
+        Class policyClass = ClassUtils.tryToLoadClassForName(value);
+
+        if(policyClass == null || !WindowContextEvictionPolicy.class.isAssignableFrom(policyClass))
+        {
+            throw new IllegalArgumentException(value + " isn't a supported window context eviction policy. " +
+                    "Use LRU, LFU, BEAN_COUNT or the name of a class which implements " +
+                    WindowContextEvictionPolicy.class.getName());
+        }
+        return policyClass;
+    }
+}
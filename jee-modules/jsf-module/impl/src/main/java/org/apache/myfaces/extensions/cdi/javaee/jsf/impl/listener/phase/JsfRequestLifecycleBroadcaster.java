@@ -18,17 +18,13 @@
  */
 package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.listener.phase;
 
-import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.PhaseId;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.JsfLifecyclePhaseInformation;
-import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.AfterPhase;
-import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.BeforePhase;
 
 import javax.enterprise.context.RequestScoped;
-import javax.enterprise.event.Event;
+import javax.faces.context.FacesContext;
 import javax.faces.event.PhaseEvent;
 import javax.inject.Inject;
 import javax.inject.Named;
-import java.lang.annotation.Annotation;
 
 /**
  * @author Gerhard Petracek
@@ -40,66 +36,27 @@ public class JsfRequestLifecycleBroadcaster implements JsfLifecyclePhaseInformat
 {
     static final String BEAN_NAME = "jsfRequestLifecycleBroadcaster";
 
-    private javax.faces.event.PhaseId facesPhaseId;
+    //the phase listener doesn't resolve this bean for phases without observers
+    //-> it's only tracked if the JsfLifecyclePhaseInformation gets injected (see PhaseObserverExtension)
+    static final String CURRENT_PHASE_ID_KEY = JsfRequestLifecycleBroadcaster.class.getName() + ":CURRENT_PHASE_ID";
 
     @Inject
-    private Event<PhaseEvent> phaseEvent;
-
-    @Inject
-    @BeforePhase(PhaseId.ANY_PHASE)
-    private Event<PhaseEvent> beforeAnyPhaseEvent;
-
-    @Inject
-    @AfterPhase(PhaseId.ANY_PHASE)
-    private Event<PhaseEvent> afterAnyPhaseEvent;
+    private PhaseEventDispatcher phaseEventDispatcher;
 
     void broadcastBeforeEvent(PhaseEvent phaseEvent)
     {
-        this.facesPhaseId = phaseEvent.getPhaseId();
-
-        this.phaseEvent.select(createAnnotationLiteral(phaseEvent.getPhaseId(), true)).fire(phaseEvent);
-        this.beforeAnyPhaseEvent.fire(phaseEvent);
+        this.phaseEventDispatcher.fireBeforeEvent(phaseEvent);
     }
 
     void broadcastAfterEvent(PhaseEvent phaseEvent)
     {
-        this.phaseEvent.select(createAnnotationLiteral(phaseEvent.getPhaseId(), false)).fire(phaseEvent);
-        this.afterAnyPhaseEvent.fire(phaseEvent);
+        this.phaseEventDispatcher.fireAfterEvent(phaseEvent);
     }
 
-    private Annotation createAnnotationLiteral(javax.faces.event.PhaseId phaseId, boolean isBeforeEvent)
+    private javax.faces.event.PhaseId getFacesPhaseId()
     {
-        if (isBeforeEvent)
-        {
-            return createBeforeLiteral(phaseId);
-        }
-        return createAfterLiteral(phaseId);
-    }
-
-    private Annotation createBeforeLiteral(final javax.faces.event.PhaseId phaseId)
-    {
-        return new BeforePhaseBinding()
-        {
-            private static final long serialVersionUID = 849645435335842723L;
-
-            public PhaseId value()
-            {
-                return PhaseId.convertFromFacesClass(phaseId);
-            }
-        };
-    }
-
-    private Annotation createAfterLiteral(final javax.faces.event.PhaseId phaseId)
-    {
-        return new AfterPhaseBinding()
-        {
-            private static final long serialVersionUID = 490037768660184656L;
-
-            public PhaseId value()
-            {
-                return PhaseId.convertFromFacesClass(phaseId);
-            }
-        };
+        return (javax.faces.event.PhaseId) FacesContext.getCurrentInstance().getExternalContext()
+                .getRequestMap().get(CURRENT_PHASE_ID_KEY);
     }
 
     /*
@@ -107,31 +64,31 @@ public class JsfRequestLifecycleBroadcaster implements JsfLifecyclePhaseInformat
      */
     public boolean isRestoreViewPhase()
     {
-        return javax.faces.event.PhaseId.RESTORE_VIEW.equals(this.facesPhaseId);
+        return javax.faces.event.PhaseId.RESTORE_VIEW.equals(getFacesPhaseId());
     }
 
     public boolean isApplyRequestValuesPhase()
     {
-        return javax.faces.event.PhaseId.APPLY_REQUEST_VALUES.equals(this.facesPhaseId);
+        return javax.faces.event.PhaseId.APPLY_REQUEST_VALUES.equals(getFacesPhaseId());
     }
 
     public boolean isProcessValidationsPhase()
     {
-        return javax.faces.event.PhaseId.PROCESS_VALIDATIONS.equals(this.facesPhaseId);
+        return javax.faces.event.PhaseId.PROCESS_VALIDATIONS.equals(getFacesPhaseId());
     }
 
     public boolean isUpdateModelValuesPhase()
     {
-        return javax.faces.event.PhaseId.UPDATE_MODEL_VALUES.equals(this.facesPhaseId);
+        return javax.faces.event.PhaseId.UPDATE_MODEL_VALUES.equals(getFacesPhaseId());
     }
 
     public boolean isInvokeApplicationPhase()
     {
-        return javax.faces.event.PhaseId.INVOKE_APPLICATION.equals(this.facesPhaseId);
+        return javax.faces.event.PhaseId.INVOKE_APPLICATION.equals(getFacesPhaseId());
     }
 
     public boolean isRenderResponsePhase()
     {
-        return javax.faces.event.PhaseId.RENDER_RESPONSE.equals(this.facesPhaseId);
+        return javax.faces.event.PhaseId.RENDER_RESPONSE.equals(getFacesPhaseId());
     }
 }
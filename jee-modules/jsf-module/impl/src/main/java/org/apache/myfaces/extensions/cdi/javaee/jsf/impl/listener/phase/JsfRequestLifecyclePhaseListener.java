@@ -34,14 +34,55 @@ public class JsfRequestLifecyclePhaseListener implements PhaseListener
 {
     private static final long serialVersionUID = -4351903831660165998L;
 
+    //lazily initialized - the extension has to process all observer methods before
+    private transient volatile Integer observedPhases;
+
     public void beforePhase(PhaseEvent phaseEvent)
     {
-        resolveBroadcaster().broadcastBeforeEvent(phaseEvent);
+        int observedPhases = getObservedPhases();
+
+        //the events of a phase are fired with the qualifier of the phase and with the ANY_PHASE qualifier
+        int phaseEventBits = PhaseObserverExtension.getBeforePhaseBit(phaseEvent.getPhaseId()) |
+                PhaseObserverExtension.getBeforePhaseBit(PhaseId.ANY_PHASE);
+
+        if ((observedPhases & (phaseEventBits | PhaseObserverExtension.PHASE_INFORMATION_USED)) == 0)
+        {
+            return;
+        }
+
+        if ((observedPhases & PhaseObserverExtension.PHASE_INFORMATION_USED) != 0)
+        {
+            phaseEvent.getFacesContext().getExternalContext().getRequestMap()
+                    .put(JsfRequestLifecycleBroadcaster.CURRENT_PHASE_ID_KEY, phaseEvent.getPhaseId());
+        }
+
+        if ((observedPhases & phaseEventBits) != 0)
+        {
+            resolveBroadcaster().broadcastBeforeEvent(phaseEvent);
+        }
     }
 
     public void afterPhase(PhaseEvent phaseEvent)
     {
-        resolveBroadcaster().broadcastAfterEvent(phaseEvent);
+        int phaseEventBits = PhaseObserverExtension.getAfterPhaseBit(phaseEvent.getPhaseId()) |
+                PhaseObserverExtension.getAfterPhaseBit(PhaseId.ANY_PHASE);
+
+        if ((getObservedPhases() & phaseEventBits) != 0)
+        {
+            resolveBroadcaster().broadcastAfterEvent(phaseEvent);
+        }
+    }
+
+    private int getObservedPhases()
+    {
+        Integer observedPhases = this.observedPhases;
+
+        if (observedPhases == null)
+        {
+            observedPhases = PhaseObserverExtension.getObservedPhases();
+            this.observedPhases = observedPhases;
+        }
+        return observedPhases;
     }
 
     private JsfRequestLifecycleBroadcaster resolveBroadcaster()
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.listener.phase;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.PhaseId;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.faces.event.PhaseEvent;
+import javax.inject.Inject;
+import java.lang.annotation.Annotation;
+
+/**
+ * Fires the phase events with pre-selected events and qualifiers.
+ * Events without observers (see {@link PhaseObserverExtension}) aren't fired at all.
+ *
+ * @author Gerhard Petracek
+ */
+@ApplicationScoped
+public class PhaseEventDispatcher
+{
+    @Inject
+    private Event<PhaseEvent> phaseEvent;
+
+    //indexed by the ordinal of the jsf phase-id
+    private PhaseEventTarget[] beforePhaseEventTargets;
+
+    private PhaseEventTarget[] afterPhaseEventTargets;
+
+    private PhaseEventTarget beforeAnyPhaseEventTarget;
+
+    private PhaseEventTarget afterAnyPhaseEventTarget;
+
+    protected PhaseEventDispatcher()
+    {
+    }
+
+    @PostConstruct
+    protected void init()
+    {
+        int phaseCount = javax.faces.event.PhaseId.VALUES.size();
+        this.beforePhaseEventTargets = new PhaseEventTarget[phaseCount];
+        this.afterPhaseEventTargets = new PhaseEventTarget[phaseCount];
+
+        //the observers don't change after the deployment
+        int observedPhases = PhaseObserverExtension.getObservedPhases();
+
+        javax.faces.event.PhaseId facesPhaseId;
+        for (PhaseId phaseId : PhaseId.values())
+        {
+            facesPhaseId = PhaseId.convertToFacesClass(phaseId);
+
+            this.beforePhaseEventTargets[facesPhaseId.getOrdinal()] = new PhaseEventTarget(
+                    new BeforePhaseLiteral(phaseId),
+                    (observedPhases & PhaseObserverExtension.getBeforePhaseBit(facesPhaseId)) != 0);
+            this.afterPhaseEventTargets[facesPhaseId.getOrdinal()] = new PhaseEventTarget(
+                    new AfterPhaseLiteral(phaseId),
+                    (observedPhases & PhaseObserverExtension.getAfterPhaseBit(facesPhaseId)) != 0);
+        }
+
+        this.beforeAnyPhaseEventTarget = this.beforePhaseEventTargets[javax.faces.event.PhaseId.ANY_PHASE.getOrdinal()];
+        this.afterAnyPhaseEventTarget = this.afterPhaseEventTargets[javax.faces.event.PhaseId.ANY_PHASE.getOrdinal()];
+    }
+
+    void fireBeforeEvent(PhaseEvent phaseEvent)
+    {
+        this.beforePhaseEventTargets[phaseEvent.getPhaseId().getOrdinal()].fire(phaseEvent);
+        this.beforeAnyPhaseEventTarget.fire(phaseEvent);
+    }
+
+    void fireAfterEvent(PhaseEvent phaseEvent)
+    {
+        this.afterPhaseEventTargets[phaseEvent.getPhaseId().getOrdinal()].fire(phaseEvent);
+        this.afterAnyPhaseEventTarget.fire(phaseEvent);
+    }
+
+    private class PhaseEventTarget
+    {
+        //null if there is no observer
+        private final Event<PhaseEvent> event;
+
+        private PhaseEventTarget(Annotation qualifier, boolean observed)
+        {
+            this.event = observed ? phaseEvent.select(qualifier) : null;
+        }
+
+        private void fire(PhaseEvent phaseEvent)
+        {
+            if (this.event != null)
+            {
+                this.event.fire(phaseEvent);
+            }
+        }
+    }
+
+    private static class BeforePhaseLiteral extends BeforePhaseBinding
+    {
+        private static final long serialVersionUID = 849645435335842723L;
+
+        private final PhaseId phaseId;
+
+        private BeforePhaseLiteral(PhaseId phaseId)
+        {
+            this.phaseId = phaseId;
+        }
+
+        public PhaseId value()
+        {
+            return this.phaseId;
+        }
+    }
+
+    private static class AfterPhaseLiteral extends AfterPhaseBinding
+    {
+        private static final long serialVersionUID = 490037768660184656L;
+
+        private final PhaseId phaseId;
+
+        private AfterPhaseLiteral(PhaseId phaseId)
+        {
+            this.phaseId = phaseId;
+        }
+
+        public PhaseId value()
+        {
+            return this.phaseId;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.listener.phase;
+
+import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.AfterPhase;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.BeforePhase;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.JsfLifecyclePhaseInformation;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.PhaseId;
+
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.Instance;
+import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.BeforeShutdown;
+import javax.enterprise.inject.spi.Extension;
+import javax.enterprise.inject.spi.InjectionPoint;
+import javax.enterprise.inject.spi.ObserverMethod;
+import javax.enterprise.inject.spi.ProcessInjectionTarget;
+import javax.enterprise.inject.spi.ProcessObserverMethod;
+import javax.faces.event.PhaseEvent;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the phases which are observed by at least one observer method and if the
+ * {@link JsfLifecyclePhaseInformation} is injected somewhere.
+ * The {@link JsfRequestLifecyclePhaseListener} and the {@link PhaseEventDispatcher} use the result to skip phases
+ * and events without observers.
+ * We have to maintain this separately for each ContextClassLoader since it
+ * is possible that multiple WebApps start up in parallel.
+ *
+ * @author Gerhard Petracek
+ */
+public class PhaseObserverExtension implements Extension
+{
+    //the bits 0-7 are used for the before-phase events and the bits 8-15 for the after-phase events
+    //(indexed by the ordinal of the jsf phase-id - bit 0 and 8 are used for the ANY_PHASE qualifier)
+    private static final int AFTER_PHASE_OFFSET = 8;
+
+    private static final int ALL_PHASE_EVENTS = 0xFFFF;
+
+    //the current phase has to be tracked for the JsfLifecyclePhaseInformation
+    static final int PHASE_INFORMATION_USED = 1 << 16;
+
+    static final int ALL_PHASES = ALL_PHASE_EVENTS | PHASE_INFORMATION_USED;
+
+    private static Map<ClassLoader, Integer> observedPhases = new ConcurrentHashMap<ClassLoader, Integer>();
+
+    private int observedPhaseMask;
+
+    private boolean observerMethodFound;
+
+    public void recordPhaseInformationUsage(@Observes ProcessInjectionTarget processInjectionTarget)
+    {
+        if ((this.observedPhaseMask & PHASE_INFORMATION_USED) != 0)
+        {
+            return;
+        }
+
+        for (Object injectionPoint : processInjectionTarget.getInjectionTarget().getInjectionPoints())
+        {
+            if (isPhaseInformation(((InjectionPoint) injectionPoint).getType()))
+            {
+                this.observedPhaseMask |= PHASE_INFORMATION_USED;
+                return;
+            }
+        }
+    }
+
+    public void recordObservedPhases(@Observes ProcessObserverMethod processObserverMethod)
+    {
+        //the container fires this event for every observer method of the application
+        this.observerMethodFound = true;
+
+        ObserverMethod<?> observerMethod = processObserverMethod.getObserverMethod();
+
+        if (!isPhaseEventObserved(observerMethod.getObservedType()))
+        {
+            return;
+        }
+
+        this.observedPhaseMask |= resolvePhaseMask(observerMethod.getObservedQualifiers());
+    }
+
+    public void publishObservedPhases(@Observes AfterBeanDiscovery afterBeanDiscovery)
+    {
+        //containers which don't fire ProcessObserverMethod never restrict the broadcasting
+        if (this.observerMethodFound)
+        {
+            observedPhases.put(ClassUtils.getClassLoader(null), this.observedPhaseMask);
+        }
+    }
+
+    public void resetObservedPhases(@Observes BeforeShutdown beforeShutdown)
+    {
+        observedPhases.remove(ClassUtils.getClassLoader(null));
+    }
+
+    /**
+     * @return the bitmask of all observed phases of the current application
+     */
+    static int getObservedPhases()
+    {
+        Integer result = observedPhases.get(ClassUtils.getClassLoader(null));
+
+        if (result == null)
+        {
+            return ALL_PHASES;
+        }
+        return result;
+    }
+
+    /**
+     * @param phaseId the jsf phase-id of the qualifier (ANY_PHASE for observers of all before-phase events)
+     * @return the bit of the events which are fired with the before-phase qualifier of the given phase
+     */
+    static int getBeforePhaseBit(javax.faces.event.PhaseId phaseId)
+    {
+        return 1 << phaseId.getOrdinal();
+    }
+
+    /**
+     * @param phaseId the jsf phase-id of the qualifier (ANY_PHASE for observers of all after-phase events)
+     * @return the bit of the events which are fired with the after-phase qualifier of the given phase
+     */
+    static int getAfterPhaseBit(javax.faces.event.PhaseId phaseId)
+    {
+        return 1 << (phaseId.getOrdinal() + AFTER_PHASE_OFFSET);
+    }
+
+    private boolean isPhaseInformation(Type injectedType)
+    {
+        if (injectedType instanceof ParameterizedType &&
+                Instance.class.equals(((ParameterizedType) injectedType).getRawType()))
+        {
+            injectedType = ((ParameterizedType) injectedType).getActualTypeArguments()[0];
+        }
+
+        return JsfLifecyclePhaseInformation.class.equals(injectedType) ||
+                JsfRequestLifecycleBroadcaster.class.equals(injectedType);
+    }
+
+    private boolean isPhaseEventObserved(Type observedType)
+    {
+        if (observedType instanceof ParameterizedType)
+        {
+            observedType = ((ParameterizedType) observedType).getRawType();
+        }
+
+        if (observedType instanceof Class)
+        {
+            return ((Class) observedType).isAssignableFrom(PhaseEvent.class);
+        }
+
+        //type variables, ... aren't evaluated
+        return true;
+    }
+
+    private int resolvePhaseMask(Iterable<Annotation> qualifiers)
+    {
+        PhaseId phaseId;
+
+        for (Annotation qualifier : qualifiers)
+        {
+            if (qualifier instanceof BeforePhase)
+            {
+                phaseId = ((BeforePhase) qualifier).value();
+                return getBeforePhaseBit(PhaseId.convertToFacesClass(phaseId));
+            }
+
+            if (qualifier instanceof AfterPhase)
+            {
+                phaseId = ((AfterPhase) qualifier).value();
+                return getAfterPhaseBit(PhaseId.convertToFacesClass(phaseId));
+            }
+        }
+
+        //observers without phase qualifier receive the events of all phases
+        return ALL_PHASE_EVENTS;
+    }
+}
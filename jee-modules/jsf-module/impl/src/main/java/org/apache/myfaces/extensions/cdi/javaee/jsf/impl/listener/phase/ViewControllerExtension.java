@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.listener.phase;
+
+import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
+import org.apache.myfaces.extensions.cdi.core.api.view.definition.View;
+import org.apache.myfaces.extensions.cdi.core.api.view.definition.ViewDefinition;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.AfterPhase;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.BeforePhase;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view.ViewDefinitionCache;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view.ViewDefinitionEntry;
+
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterDeploymentValidation;
+import javax.enterprise.inject.spi.BeforeShutdown;
+import javax.enterprise.inject.spi.Extension;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Collects the phase observer methods which are restricted to views via {@link View} and
+ * resolves the view-ids once the view definitions are available.
+ * The {@link ViewControllerInterceptor} just has to look up the view-ids of the intercepted method.
+ * Methods which weren't found during the bootstrapping process (e.g. methods of proxies) get checked via reflection
+ * once - the result is cached as well.
+ * We have to maintain this separately for each ContextClassLoader since it
+ * is possible that multiple WebApps start up in parallel.
+ *
+ * @author Gerhard Petracek
+ */
+public class ViewControllerExtension implements Extension
+{
+    private static ConcurrentMap<ClassLoader, ConcurrentMap<Method, Set<String>>> viewControllerMethods =
+            new ConcurrentHashMap<ClassLoader, ConcurrentMap<Method, Set<String>>>();
+
+    //negative result for methods which aren't restricted to views - it's compared by identity
+    private static final Set<String> UNRESTRICTED_METHOD = Collections.unmodifiableSet(new HashSet<String>(0));
+
+    private Map<Method, View> foundViewControllerMethods = new HashMap<Method, View>();
+
+    public void findViewControllerMethods(@Observes ProcessAnnotatedType processAnnotatedType)
+    {
+        Class<?> currentClass = processAnnotatedType.getAnnotatedType().getJavaClass();
+
+        View view;
+        while(currentClass != null && !Object.class.getName().equals(currentClass.getName()))
+        {
+            for(Method currentMethod : currentClass.getDeclaredMethods())
+            {
+                if(this.foundViewControllerMethods.containsKey(currentMethod) || !isObserverMethod(currentMethod))
+                {
+                    continue;
+                }
+
+                view = getViewAnnotation(currentMethod);
+
+                if(view != null)
+                {
+                    this.foundViewControllerMethods.put(currentMethod, view);
+                }
+            }
+
+            currentClass = currentClass.getSuperclass();
+        }
+    }
+
+    public void resolveViewIds(@Observes AfterDeploymentValidation afterDeploymentValidation)
+    {
+        ConcurrentMap<Method, Set<String>> result = new ConcurrentHashMap<Method, Set<String>>();
+
+        for(Map.Entry<Method, View> viewControllerMethod : this.foundViewControllerMethods.entrySet())
+        {
+            try
+            {
+                result.put(viewControllerMethod.getKey(), resolveViewIds(viewControllerMethod.getValue()));
+            }
+            catch (IllegalStateException e)
+            {
+                afterDeploymentValidation.addDeploymentProblem(e);
+            }
+        }
+
+        this.foundViewControllerMethods.clear();
+        viewControllerMethods.put(ClassUtils.getClassLoader(null), result);
+    }
+
+    public void resetViewIds(@Observes BeforeShutdown beforeShutdown)
+    {
+        viewControllerMethods.remove(ClassUtils.getClassLoader(null));
+    }
+
+    /**
+     * @param method intercepted method
+     * @return the ids of the views the given observer method is bound to or null if it isn't a phase observer
+     */
+    static Set<String> getViewIds(Method method)
+    {
+        ConcurrentMap<Method, Set<String>> methods = getViewControllerMethods();
+
+        Set<String> viewIds = methods.get(method);
+
+        if(viewIds == null)
+        {
+            //unknown methods mustn't be invoked for every view -> fall back to the reflective check
+            viewIds = findViewIds(method);
+            methods.put(method, viewIds);
+        }
+
+        if(viewIds == UNRESTRICTED_METHOD)
+        {
+            return null;
+        }
+        return viewIds;
+    }
+
+    private static ConcurrentMap<Method, Set<String>> getViewControllerMethods()
+    {
+        ClassLoader classLoader = ClassUtils.getClassLoader(null);
+        ConcurrentMap<Method, Set<String>> methods = viewControllerMethods.get(classLoader);
+
+        if(methods == null)
+        {
+            methods = new ConcurrentHashMap<Method, Set<String>>();
+
+            ConcurrentMap<Method, Set<String>> existingMethods =
+                    viewControllerMethods.putIfAbsent(classLoader, methods);
+
+            if(existingMethods != null)
+            {
+                return existingMethods;
+            }
+        }
+        return methods;
+    }
+
+    private static Set<String> findViewIds(Method method)
+    {
+        if(!isObserverMethod(method))
+        {
+            return UNRESTRICTED_METHOD;
+        }
+
+        View view = getViewAnnotation(method);
+
+        if(view == null)
+        {
+            return UNRESTRICTED_METHOD;
+        }
+        return resolveViewIds(view);
+    }
+
+    private static boolean isObserverMethod(Method method)
+    {
+        for(Annotation[] annotations : method.getParameterAnnotations())
+        {
+            for(Annotation annotation : annotations)
+            {
+                if(BeforePhase.class.isAssignableFrom(annotation.annotationType()) ||
+                        AfterPhase.class.isAssignableFrom(annotation.annotationType()))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static View getViewAnnotation(Method method)
+    {
+        if(method.isAnnotationPresent(View.class))
+        {
+            return method.getAnnotation(View.class);
+        }
+        return method.getDeclaringClass().getAnnotation(View.class);
+    }
+
+    private static Set<String> resolveViewIds(View view)
+    {
+        Set<String> result = new HashSet<String>();
+
+        if(view.inline().length > 1 || !"".equals(view.inline()[0]))
+        {
+            Collections.addAll(result, view.inline());
+            return result;
+        }
+
+        ViewDefinitionEntry viewDefinitionEntry;
+        for(Class<? extends ViewDefinition> viewDefinitionClass : view.value())
+        {
+            viewDefinitionEntry = ViewDefinitionCache.getViewDefinition(viewDefinitionClass);
+
+            if(viewDefinitionEntry == null)
+            {
+                throw new IllegalStateException("no view definition found for " + viewDefinitionClass.getName());
+            }
+            result.add(viewDefinitionEntry.getViewId());
+        }
+        return result;
+    }
+}
@@ -20,17 +20,12 @@ package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.listener.phase;
 
 import org.apache.myfaces.extensions.cdi.core.api.view.definition.AnyView;
 import org.apache.myfaces.extensions.cdi.core.api.view.definition.View;
-import org.apache.myfaces.extensions.cdi.core.api.view.definition.ViewDefinition;
-import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.BeforePhase;
-import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.AfterPhase;
-import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view.ViewDefinitionCache;
 
 import javax.interceptor.Interceptor;
 import javax.interceptor.AroundInvoke;
 import javax.interceptor.InvocationContext;
 import javax.faces.context.FacesContext;
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Method;
+import java.util.Set;
 
 /**
  * @author Gerhard Petracek
@@ -61,79 +56,14 @@ public class ViewControllerInterceptor
 
     private boolean invokeListenerMethod(InvocationContext invocationContext)
     {
-        if(!isObserverMethod(invocationContext))
-        {
-            return true;
-        }
-
-        View view = getViewAnnotation(invocationContext);
-
-        String viewId = FacesContext.getCurrentInstance().getViewRoot().getViewId();
-
-        if(view.inline().length > 1 || !"".equals(view.inline()[0]))
-        {
-            return isMethodBoundToView(view.inline(), viewId);
-        }
-        return isMethodBoundToViewDefinition(view.value(), viewId);
-    }
-
-    private boolean isObserverMethod(InvocationContext invocationContext)
-    {
-        for(Annotation[] annotations : invocationContext.getMethod().getParameterAnnotations())
-        {
-            for(Annotation annotation : annotations)
-            {
-                if(BeforePhase.class.isAssignableFrom(annotation.annotationType()) ||
-                        AfterPhase.class.isAssignableFrom(annotation.annotationType()))
-                {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    private View getViewAnnotation(InvocationContext invocationContext)
-    {
-        View view;
-        Method method = invocationContext.getMethod();
-        if(method.isAnnotationPresent(View.class))
-        {
-            view = method.getAnnotation(View.class);
-        }
-        else
-        {
-            view = method.getDeclaringClass().getAnnotation(View.class);
-        }
-        return view;
-    }
-
-    private boolean isMethodBoundToView(String[] viewIds, String viewId)
-    {
-        for(String current : viewIds)
-        {
-            if(current.equals(viewId))
-            {
-                return true;
-            }
-        }
-        return false;
-    }
+        //the view-ids of all observer methods get resolved during the bootstrapping process
+        Set<String> viewIds = ViewControllerExtension.getViewIds(invocationContext.getMethod());
 
-    private boolean isMethodBoundToViewDefinition (Class<? extends ViewDefinition>[] viewDefinitions, String viewId)
-    {
-        for(Class<? extends ViewDefinition> viewDefinition : viewDefinitions)
+        if(viewIds == null)
         {
-            if(resolveViewId(viewDefinition).equals(viewId))
-            {
-                return true;
-            }
+            return true;
         }
-        return false;
-    }
 
-    private String resolveViewId(Class<? extends ViewDefinition> viewDefinitionClass)
-    {
-        return ViewDefinitionCache.getViewDefinition(viewDefinitionClass).getViewId();
+        return viewIds.contains(FacesContext.getCurrentInstance().getViewRoot().getViewId());
     }
 }
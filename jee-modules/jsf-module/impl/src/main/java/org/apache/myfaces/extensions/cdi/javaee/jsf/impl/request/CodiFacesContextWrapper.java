@@ -49,6 +49,11 @@ class CodiFacesContextWrapper extends FacesContext
 
     private BeforeAfterFacesRequestBroadcaster beforeAfterFacesRequestBroadcaster;
 
+    //jsf calls #getExternalContext very often - one wrapper per (wrapped) external context is enough
+    private ExternalContext wrappedExternalContext;
+
+    private ExternalContext externalContext;
+
     CodiFacesContextWrapper(FacesContext wrappedFacesContext)
     {
         this.wrappedFacesContext = wrappedFacesContext;
@@ -94,7 +99,14 @@ class CodiFacesContextWrapper extends FacesContext
 
     public ExternalContext getExternalContext()
     {
-        return new RedirectedConversationAwareExternalContext(wrappedFacesContext.getExternalContext());
+        ExternalContext currentExternalContext = wrappedFacesContext.getExternalContext();
+
+        if(this.externalContext == null || this.wrappedExternalContext != currentExternalContext)
+        {
+            this.wrappedExternalContext = currentExternalContext;
+            this.externalContext = new RedirectedConversationAwareExternalContext(currentExternalContext);
+        }
+        return this.externalContext;
     }
 
     public FacesMessage.Severity getMaximumSeverity()
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.EditableWindowContext;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowContextEvictionPolicy;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Records the accesses of window contexts without a lock in a buffer.
+ * The buffered accesses get applied in batches to the ordered structure of the concrete policy -
+ * by a request which gets the lock without waiting or before a window context gets selected for the eviction.
+ * So the lookup of a window context never waits for an other request and the selection doesn't need a scan.
+ *
+ * @author Gerhard Petracek
+ */
+public abstract class AbstractWindowContextEvictionPolicy implements WindowContextEvictionPolicy
+{
+    private static final long serialVersionUID = -4181585396328812497L;
+
+    //number of buffered accesses which triggers an attempt to apply them
+    private static final int DRAIN_THRESHOLD = 16;
+
+    private final ConcurrentLinkedQueue<EditableWindowContext> pendingAccesses =
+            new ConcurrentLinkedQueue<EditableWindowContext>();
+
+    private final AtomicInteger pendingAccessCount = new AtomicInteger();
+
+    //guards the ordered structure of the concrete policy
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public void windowContextAccessed(EditableWindowContext windowContext)
+    {
+        this.pendingAccesses.offer(windowContext);
+
+        if(this.pendingAccessCount.incrementAndGet() >= DRAIN_THRESHOLD && this.lock.tryLock())
+        {
+            try
+            {
+                drainPendingAccesses();
+            }
+            finally
+            {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    public void windowContextRemoved(EditableWindowContext windowContext)
+    {
+        this.lock.lock();
+        try
+        {
+            //a buffered access mustn't re-add the removed window context later on
+            drainPendingAccesses();
+            removeEntry(windowContext);
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    public EditableWindowContext getWindowContextToEvict()
+    {
+        this.lock.lock();
+        try
+        {
+            drainPendingAccesses();
+            return getFirstEntry();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return all known window contexts starting with the one which should be evicted first
+     */
+    protected EditableWindowContext[] getWindowContextsInEvictionOrder()
+    {
+        this.lock.lock();
+        try
+        {
+            drainPendingAccesses();
+            return getEntries();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Updates the position of the given window context. It's invoked with the lock of the policy.
+     *
+     * @param windowContext accessed window context - it replaces a different instance with the same id
+     */
+    protected abstract void recordAccess(EditableWindowContext windowContext);
+
+    /**
+     * It's invoked with the lock of the policy.
+     *
+     * @param windowContext removed window context - it has to be ignored if it isn't the indexed instance
+     */
+    protected abstract void removeEntry(EditableWindowContext windowContext);
+
+    /**
+     * It's invoked with the lock of the policy.
+     *
+     * @return the window context which should be evicted first - null if there isn't a known window context
+     */
+    protected abstract EditableWindowContext getFirstEntry();
+
+    /**
+     * It's invoked with the lock of the policy.
+     *
+     * @return all known window contexts in the order of eviction
+     */
+    protected abstract EditableWindowContext[] getEntries();
+
+    private void drainPendingAccesses()
+    {
+        EditableWindowContext windowContext;
+        int drainedAccessCount = 0;
+
+        while((windowContext = this.pendingAccesses.poll()) != null)
+        {
+            recordAccess(windowContext);
+            drainedAccessCount++;
+        }
+
+        this.pendingAccessCount.addAndGet(-drainedAccessCount);
+    }
+
+    /**
+     * Concrete policies use it to serialize their ordered structure - e.g. parallel requests during a replication.
+     * {@link #unlockEntries()} has to be called afterwards.
+     */
+    protected final void lockEntries()
+    {
+        this.lock.lock();
+        drainPendingAccesses();
+    }
+
+    protected final void unlockEntries()
+    {
+        this.lock.unlock();
+    }
+}
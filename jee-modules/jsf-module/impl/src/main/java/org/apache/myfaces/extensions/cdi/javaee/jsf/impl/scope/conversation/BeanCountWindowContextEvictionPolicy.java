@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.EditableConversation;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.EditableWindowContext;
+
+/**
+ * Evicts the window context with the highest number of scoped beans weighted by the access order.
+ * The number of beans changes without an access of the window context,
+ * therefore the weight gets calculated for all window contexts in case of a quota violation.
+ *
+ * @author Gerhard Petracek
+ */
+public class BeanCountWindowContextEvictionPolicy extends LruWindowContextEvictionPolicy
+{
+    private static final long serialVersionUID = -5529227590964513378L;
+
+    @Override
+    public EditableWindowContext getWindowContextToEvict()
+    {
+        EditableWindowContext[] windowContexts = getWindowContextsInEvictionOrder();
+
+        EditableWindowContext result = null;
+        long highestWeight = -1;
+        long currentWeight;
+
+        for(int i = 0; i < windowContexts.length; i++)
+        {
+            //the least recently used window context has the highest rank
+            currentWeight = (getBeanCount(windowContexts[i]) + 1L) * (windowContexts.length - i);
+
+            if(currentWeight > highestWeight)
+            {
+                highestWeight = currentWeight;
+                result = windowContexts[i];
+            }
+        }
+        return result;
+    }
+
+    private int getBeanCount(EditableWindowContext windowContext)
+    {
+        int beanCount = 0;
+
+        for(EditableConversation conversation : windowContext.getConversations().values())
+        {
+            if(conversation instanceof DefaultConversation)
+            {
+                beanCount += ((DefaultConversation)conversation).getBeanCount();
+            }
+        }
+        return beanCount;
+    }
+}
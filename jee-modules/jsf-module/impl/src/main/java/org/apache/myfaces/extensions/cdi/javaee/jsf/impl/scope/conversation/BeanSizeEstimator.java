@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Approximates the retained size of a scoped bean via the length of its serialized form.
+ * The serialized bytes aren't stored - they are just counted.
+ *
+ * @author Gerhard Petracek
+ */
+class BeanSizeEstimator
+{
+    private static final Logger logger = Logger.getLogger(BeanSizeEstimator.class.getName());
+
+    private BeanSizeEstimator()
+    {
+    }
+
+    /**
+     * @param instance current bean instance
+     * @return the estimated size in bytes - 0 if the instance is null or can't be serialized
+     */
+    static long estimateSize(Object instance)
+    {
+        if (instance == null)
+        {
+            return 0;
+        }
+
+        CountingOutputStream countingOutputStream = new CountingOutputStream();
+
+        try
+        {
+            ObjectOutputStream objectOutputStream = new ObjectOutputStream(countingOutputStream);
+            objectOutputStream.writeObject(instance);
+            objectOutputStream.close();
+        }
+        catch (IOException e)
+        {
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.log(Level.FINE, "the size of " + instance.getClass().getName() + " can't be estimated", e);
+            }
+            return 0;
+        }
+
+        return countingOutputStream.count;
+    }
+
+    private static class CountingOutputStream extends OutputStream
+    {
+        private long count;
+
+        @Override
+        public void write(int b)
+        {
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length)
+        {
+            this.count += length;
+        }
+    }
+}
@@ -44,6 +44,24 @@ class BeanStorage implements Serializable
         return this.beanMap.get(beanClass);
     }
 
+    int getBeanCount()
+    {
+        return this.beanMap.size();
+    }
+
+    /**
+     * @return the estimated size of all current bean instances in bytes
+     */
+    long estimateSize()
+    {
+        long size = 0;
+        for (BeanEntry<Serializable> beanEntry : this.beanMap.values())
+        {
+            size += BeanSizeEstimator.estimateSize(beanEntry.getCurrentBeanInstance());
+        }
+        return size;
+    }
+
     BeanEntry addBean(BeanEntry<Serializable> beanEntry)
     {
         Class beanClass = beanEntry.getBean().getBeanClass();
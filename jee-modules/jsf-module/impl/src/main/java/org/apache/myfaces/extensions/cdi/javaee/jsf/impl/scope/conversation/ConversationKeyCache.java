@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.ConversationKey;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ConversationUtils;
+
+import javax.enterprise.inject.spi.Bean;
+import java.lang.annotation.Annotation;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the immutable {@link ConversationKey} of a bean.
+ * The keys of all conversation scoped beans get registered at deployment time (see
+ * {@link GroupedConversationContextExtension}) - the lookup of a scoped bean doesn't have to re-create them.
+ *
+ * @author Gerhard Petracek
+ */
+final class ConversationKeyCache
+{
+    private static final ConcurrentMap<Bean<?>, ConversationKey> conversationKeys =
+            new ConcurrentHashMap<Bean<?>, ConversationKey>();
+
+    private ConversationKeyCache()
+    {
+    }
+
+    static ConversationKey getConversationKey(Bean<?> bean)
+    {
+        ConversationKey conversationKey = conversationKeys.get(bean);
+
+        if (conversationKey != null)
+        {
+            return conversationKey;
+        }
+
+        conversationKey = createConversationKey(bean);
+
+        ConversationKey existingConversationKey = conversationKeys.putIfAbsent(bean, conversationKey);
+
+        if (existingConversationKey != null)
+        {
+            return existingConversationKey;
+        }
+        return conversationKey;
+    }
+
+    static void register(Bean<?> bean)
+    {
+        conversationKeys.put(bean, createConversationKey(bean));
+    }
+
+    static void reset()
+    {
+        conversationKeys.clear();
+    }
+
+    private static ConversationKey createConversationKey(Bean<?> bean)
+    {
+        Class conversationGroup = ConversationUtils.getConversationGroup(bean);
+
+        //don't change the qualifiers of the bean
+        Set<Annotation> qualifiers = new HashSet<Annotation>(bean.getQualifiers());
+
+        conversationGroup = ConversationUtils.convertViewAccessScope(bean, conversationGroup, qualifiers);
+
+        return new DefaultConversationKey(conversationGroup, qualifiers.toArray(new Annotation[qualifiers.size()]));
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.Conversation;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.ConversationEvictionPolicy;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.EditableWindowContext;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.EditableWindowContextManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional limits for the estimated size of the conversations of a session and of all sessions
+ * (see {@link org.apache.myfaces.extensions.cdi.javaee.jsf.api.ConfigParameter#MAX_CONVERSATION_STORAGE_SIZE} and
+ * {@link org.apache.myfaces.extensions.cdi.javaee.jsf.api.ConfigParameter#MAX_CONVERSATION_STORAGE_SIZE_PER_SESSION}).
+ * At the end of a request the conversations of the current window which were used get re-estimated.
+ * If a limit is exceeded, whole conversations of the current session get ended based on the configured
+ * {@link ConversationEvictionPolicy}. Conversations of other sessions are never touched by the current request.
+ * If the global limit is exceeded, a session releases the share of the excess which is proportional to its usage -
+ * the other sessions release their share with their next request.
+ *
+ * @author Gerhard Petracek
+ */
+public final class ConversationStorageBudget
+{
+    private static volatile ConversationStorageBudget currentBudget;
+
+    //in bytes
+    private static final AtomicLong usedStorageSize = new AtomicLong();
+
+    private static final AtomicLong evictedConversationCount = new AtomicLong();
+
+    private final long maxStorageSizePerSession;
+
+    private final long maxStorageSize;
+
+    private final Comparator<DefaultConversation> evictionOrder;
+
+    private ConversationStorageBudget(int maxStorageSizePerSessionInKB,
+                                      int maxStorageSizeInKB,
+                                      ConversationEvictionPolicy conversationEvictionPolicy)
+    {
+        this.maxStorageSizePerSession = maxStorageSizePerSessionInKB * 1024L;
+        this.maxStorageSize = maxStorageSizeInKB * 1024L;
+
+        if (ConversationEvictionPolicy.LARGEST_FIRST.equals(conversationEvictionPolicy))
+        {
+            this.evictionOrder = new Comparator<DefaultConversation>()
+            {
+                public int compare(DefaultConversation conversation1, DefaultConversation conversation2)
+                {
+                    return compareValues(conversation2.getEstimatedSize(), conversation1.getEstimatedSize());
+                }
+            };
+        }
+        else
+        {
+            this.evictionOrder = new Comparator<DefaultConversation>()
+            {
+                public int compare(DefaultConversation conversation1, DefaultConversation conversation2)
+                {
+                    return compareValues(conversation1.getLastAccess(), conversation2.getLastAccess());
+                }
+            };
+        }
+    }
+
+    public static synchronized void activate(int maxStorageSizePerSessionInKB,
+                                             int maxStorageSizeInKB,
+                                             ConversationEvictionPolicy conversationEvictionPolicy)
+    {
+        if (currentBudget == null)
+        {
+            currentBudget = new ConversationStorageBudget(
+                    maxStorageSizePerSessionInKB, maxStorageSizeInKB, conversationEvictionPolicy);
+        }
+    }
+
+    public static synchronized void deactivate()
+    {
+        currentBudget = null;
+        usedStorageSize.set(0);
+    }
+
+    public static boolean isActive()
+    {
+        return currentBudget != null;
+    }
+
+    /*
+     * metrics
+     */
+
+    /**
+     * @return the estimated size of the conversations of all sessions in bytes
+     */
+    public static long getUsedStorageSize()
+    {
+        return usedStorageSize.get();
+    }
+
+    /**
+     * @param windowContextManager window context manager of a session
+     * @return the estimated size of the conversations of the given session in bytes
+     */
+    public static long getUsedStorageSize(EditableWindowContextManager windowContextManager)
+    {
+        long result = 0;
+
+        for (DefaultConversation conversation : getConversations(windowContextManager))
+        {
+            result += conversation.getEstimatedSize();
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of conversations which were ended because a limit was exceeded
+     */
+    public static long getEvictedConversationCount()
+    {
+        return evictedConversationCount.get();
+    }
+
+    static void release(long size)
+    {
+        if (size != 0)
+        {
+            usedStorageSize.addAndGet(-size);
+        }
+    }
+
+    /**
+     * updates the estimations of the conversations of the current window and ends conversations if a limit is exceeded
+     *
+     * @param windowContextManager window context manager of the current session
+     * @param windowContext current window context
+     */
+    public static void enforce(EditableWindowContextManager windowContextManager, EditableWindowContext windowContext)
+    {
+        ConversationStorageBudget conversationStorageBudget = currentBudget;
+
+        if (conversationStorageBudget == null)
+        {
+            return;
+        }
+
+        long delta = 0;
+        for (Conversation conversation : windowContext.getConversations().values())
+        {
+            if (conversation instanceof DefaultConversation && ((DefaultConversation) conversation).getActiveState())
+            {
+                delta += ((DefaultConversation) conversation).updateEstimatedSize();
+            }
+        }
+
+        if (delta != 0)
+        {
+            usedStorageSize.addAndGet(delta);
+        }
+
+        conversationStorageBudget.enforceLimits(windowContextManager);
+    }
+
+    private void enforceLimits(EditableWindowContextManager windowContextManager)
+    {
+        long currentUsedStorageSize = usedStorageSize.get();
+
+        if (this.maxStorageSizePerSession <= 0 &&
+                (this.maxStorageSize <= 0 || currentUsedStorageSize <= this.maxStorageSize))
+        {
+            return;
+        }
+
+        //only conversations of the current session - other sessions might be used by parallel requests
+        List<DefaultConversation> conversations = getConversations(windowContextManager);
+
+        long sessionStorageSize = 0;
+        for (DefaultConversation conversation : conversations)
+        {
+            sessionStorageSize += conversation.getEstimatedSize();
+        }
+
+        long sizeToRelease = calculateSizeToRelease(sessionStorageSize, currentUsedStorageSize,
+                this.maxStorageSizePerSession, this.maxStorageSize);
+
+        if (sizeToRelease > 0)
+        {
+            evict(conversations, sizeToRelease);
+        }
+    }
+
+    /**
+     * @param sessionStorageSize estimated size of the conversations of the current session
+     * @param usedStorageSize estimated size of the conversations of all sessions
+     * @param maxStorageSizePerSession limit per session - 0 if there is no limit
+     * @param maxStorageSize limit for all sessions - 0 if there is no limit
+     * @return the size the current session has to release - it never exceeds the usage of the session
+     */
+    static long calculateSizeToRelease(long sessionStorageSize,
+                                       long usedStorageSize,
+                                       long maxStorageSizePerSession,
+                                       long maxStorageSize)
+    {
+        long result = 0;
+
+        if (maxStorageSize > 0 && usedStorageSize > maxStorageSize)
+        {
+            //a small session doesn't release the storage used by other sessions
+            result = (long) Math.ceil(
+                    (double) (usedStorageSize - maxStorageSize) * sessionStorageSize / usedStorageSize);
+        }
+
+        if (maxStorageSizePerSession > 0)
+        {
+            result = Math.max(result, sessionStorageSize - maxStorageSizePerSession);
+        }
+
+        return Math.min(result, sessionStorageSize);
+    }
+
+    private void evict(List<DefaultConversation> conversations, long sizeToRelease)
+    {
+        Collections.sort(conversations, this.evictionOrder);
+
+        long releasedSize = 0;
+        for (DefaultConversation conversation : conversations)
+        {
+            if (releasedSize >= sizeToRelease)
+            {
+                return;
+            }
+
+            releasedSize += conversation.getEstimatedSize();
+
+            //releases the estimated size - the conversation gets removed from the window context by the next cleanup
+            conversation.end();
+            evictedConversationCount.incrementAndGet();
+        }
+    }
+
+    private static List<DefaultConversation> getConversations(EditableWindowContextManager windowContextManager)
+    {
+        List<DefaultConversation> result = new ArrayList<DefaultConversation>();
+
+        for (EditableWindowContext windowContext : windowContextManager.getWindowContexts())
+        {
+            for (Conversation conversation : windowContext.getConversations().values())
+            {
+                if (conversation instanceof DefaultConversation &&
+                        ((DefaultConversation) conversation).getActiveState() &&
+                        ((DefaultConversation) conversation).getEstimatedSize() > 0)
+                {
+                    result.add((DefaultConversation) conversation);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int compareValues(long value1, long value2)
+    {
+        return value1 < value2 ? -1 : (value1 == value2 ? 0 : 1);
+    }
+}
@@ -24,6 +24,8 @@ import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.RequestCache;
 
 import javax.enterprise.inject.Typed;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 /**
@@ -38,7 +40,31 @@ public class DefaultConversation implements EditableConversation
     private final ConversationKey conversationKey;
     private ConversationExpirationEvaluator expirationEvaluator;
 
-    private final BeanStorage beanStorage = new BeanStorage();
+    //null if the conversation is passivated - use #getBeanStorage
+    private volatile BeanStorage beanStorage = new BeanStorage();
+
+    //only set if the conversation is passivated - guarded by the lock of the conversation
+    private transient PassivatedBeanStorage passivatedBeanStorage;
+
+    //last access of the bean storage - it's used to detect accesses in parallel to a passivation
+    private volatile long lastStorageAccess = System.currentTimeMillis();
+
+    //only used if a conversation storage limit is active - see ConversationStorageBudget
+    private transient volatile long estimatedSize;
+
+    //set if beans were added or removed - reading a bean doesn't require a new estimation
+    private transient volatile boolean storageChanged;
+
+    //the state of a bean might change without adding it again -> every n-th access triggers a new estimation
+    private transient int beanAccessCount;
+
+    private long lastAccess = System.currentTimeMillis();
+
+    //changed as soon as the current bean instances might get replaced - see #isCurrentGeneration
+    private transient volatile int generation;
+
+    //only used if the expiration reaper is active
+    private transient volatile ScheduledExpiration scheduledExpiration;
 
     public DefaultConversation(ConversationKey conversationKey, ConversationExpirationEvaluator expirationEvaluator)
     {
@@ -47,7 +73,8 @@ public class DefaultConversation implements EditableConversation
     }
 
     //just for a better performance to avoid frequent calls to the {@link #expirationEvaluator}
-    private boolean active;
+    //volatile - the conversation might get ended by a different thread (see #isCurrentGeneration)
+    private volatile boolean active;
 
     public boolean isActive()
     {
@@ -73,15 +100,23 @@ public class DefaultConversation implements EditableConversation
         if(this.active)
         {
             this.active = false;
-            this.beanStorage.resetStorage();
+            nextGeneration();
+            //a passivated storage gets restored - the beans have to be destroyed
+            getBeanStorage().resetStorage();
             RequestCache.resetConversationCache();
         }
+
+        //also required for a conversation which was deactivated before
+        releaseEstimatedSize();
     }
 
     public void restart()
     {
         touchConversation();
-        this.beanStorage.resetStorage();
+        nextGeneration();
+        getBeanStorage().resetStorage();
+        this.storageChanged = true;
+        RequestCache.resetBeanInstanceCache();
     }
 
     @SuppressWarnings({"unchecked"})
@@ -92,7 +127,7 @@ public class DefaultConversation implements EditableConversation
             return null;
         }
 
-        BeanEntry scopedBean = this.beanStorage.getBean(key);
+        BeanEntry scopedBean = getBeanStorage().getBean(key);
 
         if (scopedBean == null)
         {
@@ -101,6 +136,11 @@ public class DefaultConversation implements EditableConversation
 
         touchConversation();
 
+        if ((++this.beanAccessCount & 31) == 0)
+        {
+            this.storageChanged = true;
+        }
+
         return (T) scopedBean.getBeanInstance();
     }
 
@@ -109,9 +149,226 @@ public class DefaultConversation implements EditableConversation
         //TODO check if conversation is active
         touchConversation();
 
+        //an existing entry might get replaced
+        nextGeneration();
+
         //TODO
         //noinspection unchecked
-        this.beanStorage.addBean((BeanEntry<Serializable>) beanEntry);
+        getBeanStorage().addBean((BeanEntry<Serializable>) beanEntry);
+        this.storageChanged = true;
+    }
+
+    /**
+     * @return the current generation of the bean instances - it has to be read before the instance gets checked
+     * via {@link #isCurrentBeanInstance}
+     */
+    int getGeneration()
+    {
+        return this.generation;
+    }
+
+    /**
+     * checks an instance which was cached for the current request without a lookup in the bean storage
+     *
+     * @param generation the generation which was current as the instance was cached
+     * @return true if the conversation wasn't ended, restarted or passivated since the instance was cached
+     */
+    boolean isCurrentGeneration(int generation)
+    {
+        return this.active && this.generation == generation;
+    }
+
+    /**
+     * checks an instance before it gets cached for the current request
+     *
+     * @param beanClass    class of the bean
+     * @param beanInstance the resolved instance
+     * @return true if the instance is the current instance of the bean
+     */
+    boolean isCurrentBeanInstance(Class beanClass, Object beanInstance)
+    {
+        //the instances of a passivated conversation get replaced by a restore
+        BeanStorage currentBeanStorage = this.beanStorage;
+
+        if (!this.active || currentBeanStorage == null)
+        {
+            return false;
+        }
+
+        BeanEntry beanEntry = currentBeanStorage.getBean(beanClass);
+        return beanEntry != null && beanEntry.getCurrentBeanInstance() == beanInstance;
+    }
+
+    int getBeanCount()
+    {
+        BeanStorage currentBeanStorage = this.beanStorage;
+
+        if (currentBeanStorage != null)
+        {
+            return currentBeanStorage.getBeanCount();
+        }
+        return getPassivatedBeanCount();
+    }
+
+    /**
+     * Moves the bean storage out of the heap if it wasn't used for the given time.
+     * The whole storage gets serialized (like during the passivation of the session) and it's restored by the
+     * next access. It's invoked with the lock of the window context.
+     *
+     * @param idleTimeInMillis min. time since the last access
+     * @return true if the conversation was passivated
+     */
+    synchronized boolean passivate(long idleTimeInMillis)
+    {
+        BeanStorage currentBeanStorage = this.beanStorage;
+
+        if (!this.active || currentBeanStorage == null || currentBeanStorage.getBeanCount() == 0 ||
+                isUsedWithin(idleTimeInMillis))
+        {
+            return false;
+        }
+
+        //the instances get replaced by the restore
+        nextGeneration();
+
+        //write before read (the opposite order of #getBeanStorage) - a parallel access is detected here or
+        //the parallel request doesn't see the storage and waits for the lock to restore it
+        this.beanStorage = null;
+
+        if (isUsedWithin(idleTimeInMillis))
+        {
+            this.beanStorage = currentBeanStorage;
+            return false;
+        }
+
+        PassivatedBeanStorage result = PassivatedBeanStorage.passivate(currentBeanStorage);
+
+        if (result == null)
+        {
+            this.beanStorage = currentBeanStorage;
+            return false;
+        }
+
+        this.passivatedBeanStorage = result;
+
+        //passivated conversations don't count for the conversation storage limits
+        releaseEstimatedSize();
+        this.storageChanged = true;
+        return true;
+    }
+
+    boolean isPassivated()
+    {
+        return this.beanStorage == null;
+    }
+
+    //write before read - see #passivate
+    private BeanStorage getBeanStorage()
+    {
+        this.lastStorageAccess = System.currentTimeMillis();
+
+        BeanStorage currentBeanStorage = this.beanStorage;
+
+        if (currentBeanStorage == null)
+        {
+            currentBeanStorage = restoreBeanStorage();
+        }
+        return currentBeanStorage;
+    }
+
+    private synchronized BeanStorage restoreBeanStorage()
+    {
+        if (this.beanStorage == null)
+        {
+            this.beanStorage = this.passivatedBeanStorage.restore();
+            this.passivatedBeanStorage = null;
+        }
+        return this.beanStorage;
+    }
+
+    private synchronized int getPassivatedBeanCount()
+    {
+        if (this.passivatedBeanStorage == null)
+        {
+            //restored in the meantime
+            return this.beanStorage.getBeanCount();
+        }
+        return this.passivatedBeanStorage.getBeanCount();
+    }
+
+    private synchronized void nextGeneration()
+    {
+        this.generation++;
+    }
+
+    private boolean isUsedWithin(long timeInMillis)
+    {
+        return System.currentTimeMillis() - this.lastStorageAccess < timeInMillis;
+    }
+
+    /**
+     * re-estimates the size of the scoped beans if the conversation was used since the last estimation
+     *
+     * @return the difference to the previous estimation in bytes
+     */
+    synchronized long updateEstimatedSize()
+    {
+        if (!this.storageChanged)
+        {
+            return 0;
+        }
+
+        BeanStorage currentBeanStorage = this.beanStorage;
+
+        if (currentBeanStorage == null)
+        {
+            //the size was released by the passivation
+            return 0;
+        }
+
+        this.storageChanged = false;
+
+        long oldSize = this.estimatedSize;
+        this.estimatedSize = currentBeanStorage.estimateSize();
+        return this.estimatedSize - oldSize;
+    }
+
+    /**
+     * removes the estimated size of the conversation from the used storage size (it's released only once)
+     */
+    synchronized void releaseEstimatedSize()
+    {
+        ConversationStorageBudget.release(this.estimatedSize);
+        this.estimatedSize = 0;
+    }
+
+    void setScheduledExpiration(ScheduledExpiration scheduledExpiration)
+    {
+        this.scheduledExpiration = scheduledExpiration;
+    }
+
+    /**
+     * drops the conversation from the expiration reaper - it isn't referenced by the reaper afterwards
+     */
+    void cancelScheduledExpiration()
+    {
+        ScheduledExpiration currentScheduledExpiration = this.scheduledExpiration;
+
+        if (currentScheduledExpiration != null)
+        {
+            this.scheduledExpiration = null;
+            currentScheduledExpiration.cancel();
+        }
+    }
+
+    long getEstimatedSize()
+    {
+        return this.estimatedSize;
+    }
+
+    long getLastAccess()
+    {
+        return this.lastAccess;
     }
 
     private boolean isConversationExpired()
@@ -122,6 +379,7 @@ public class DefaultConversation implements EditableConversation
     private void touchConversation()
     {
         this.active = true;
+        this.lastAccess = System.currentTimeMillis();
 
         this.expirationEvaluator.touch();
     }
@@ -131,4 +389,14 @@ public class DefaultConversation implements EditableConversation
     {
         return expirationEvaluator;
     }
+
+    //the direct buffer of a passivated conversation isn't serializable
+    private synchronized void writeObject(ObjectOutputStream objectOutputStream) throws IOException
+    {
+        if (this.beanStorage == null)
+        {
+            restoreBeanStorage();
+        }
+        objectOutputStream.defaultWriteObject();
+    }
 }
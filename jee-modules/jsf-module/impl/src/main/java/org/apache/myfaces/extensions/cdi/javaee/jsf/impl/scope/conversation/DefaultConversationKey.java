@@ -19,7 +19,6 @@
 package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
 
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.ConversationKey;
-import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.WindowScoped;
 import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.ViewAccessScoped;
 import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.ConversationGroup;
 
@@ -38,19 +37,17 @@ class DefaultConversationKey implements ConversationKey
 {
     private static final long serialVersionUID = 3577945095460042939L;
 
-    private static final String INVALID_WINDOW_SCOPE_DEFINITION =
-            ": It isn't allowed to use qualifiers in combination with " + WindowScoped.class.getName();
-
-    private static final String INVALID_VIEW_ACCESS_SCOPE_DEFINITION =
-            ": It isn't allowed to use qualifiers in combination with " + WindowScoped.class.getName();
-
     private Class<?> groupKey;
     private Set<Annotation> qualifiers;
 
     //workaround
     private boolean viewAccessScopedAnnotationPresent;
 
-    DefaultConversationKey(Class<?> groupKey, boolean validateKey, Annotation... qualifiers)
+    //the key is immutable and gets used for frequent lookups - 0 = not calculated
+    private transient int hashCode;
+
+    //the qualifiers get validated at deployment time - see GroupedConversationContextExtension
+    DefaultConversationKey(Class<?> groupKey, Annotation... qualifiers)
     {
         this.groupKey = groupKey;
 
@@ -64,10 +61,7 @@ class DefaultConversationKey implements ConversationKey
             {
                 this.viewAccessScopedAnnotationPresent = true;
             }
-            else if(Any.class.isAssignableFrom(annotationType) ||
-                    Default.class.isAssignableFrom(annotationType) ||
-                    Named.class.isAssignableFrom(annotationType)   ||
-                    ConversationGroup.class.isAssignableFrom(annotationType))
+            else if(isIgnoredQualifier(annotationType))
             {
                 //won't be used for this key!
             }
@@ -80,31 +74,18 @@ class DefaultConversationKey implements ConversationKey
                 this.qualifiers.add(qualifier);
             }
         }
-
-        //X TODO drop and move validation to deploy time!
-        if(validateKey)
-        {
-            validate();
-        }
     }
 
-
     /**
-     * @deprecated TODO this must be validated at deploy time instead !
+     * @param annotationType type of a qualifier
+     * @return true if the qualifier doesn't influence the key of a conversation
      */
-    private void validate()
+    static boolean isIgnoredQualifier(Class<? extends Annotation> annotationType)
     {
-        boolean defaultQualifierUsed = isDefaultQualifier();
-
-        if(isWindowScope() && !defaultQualifierUsed)
-        {
-            throw new IllegalStateException(this.groupKey.getName() + INVALID_WINDOW_SCOPE_DEFINITION);
-        }
-
-        if(isViewAccessScope() && !defaultQualifierUsed)
-        {
-            throw new IllegalStateException(this.groupKey.getName() + INVALID_VIEW_ACCESS_SCOPE_DEFINITION);
-        }
+        return Any.class.isAssignableFrom(annotationType) ||
+                Default.class.isAssignableFrom(annotationType) ||
+                Named.class.isAssignableFrom(annotationType) ||
+                ConversationGroup.class.isAssignableFrom(annotationType);
     }
 
     boolean isViewAccessScopedAnnotationPresent()
@@ -112,34 +93,6 @@ class DefaultConversationKey implements ConversationKey
         return viewAccessScopedAnnotationPresent;
     }
 
-    private boolean isWindowScope()
-    {
-        return WindowScoped.class.isAssignableFrom(this.groupKey.getClass());
-    }
-
-    @Deprecated
-    private boolean isViewAccessScope()
-    {
-        return ViewAccessScoped.class.isAssignableFrom(this.groupKey.getClass());
-    }
-
-    private boolean isDefaultQualifier()
-    {
-        if (qualifiers == null)
-        {
-            return true;
-        }
-
-        for(Annotation qualifier : this.qualifiers)
-        {
-            if(Default.class.isAssignableFrom(qualifier.getClass()))
-            {
-                return true;
-            }
-        }
-        return false;
-    }
-
     public Class<?> getConversationGroup()
     {
         return groupKey;
@@ -192,11 +145,17 @@ class DefaultConversationKey implements ConversationKey
     @Override
     public int hashCode()
     {
+        if (this.hashCode != 0)
+        {
+            return this.hashCode;
+        }
+
         int result = groupKey.hashCode();
         if (qualifiers != null)
         {
             result = 31 * result + qualifiers.hashCode();
         }
+        this.hashCode = result;
         return result;
     }
 }
@@ -32,6 +32,7 @@ import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.EditableWindowContextManager;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowContextFactory;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowContextQuotaHandler;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowContextEvictionPolicy;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowHandler;
 
 import javax.enterprise.inject.Typed;
@@ -39,10 +40,12 @@ import javax.faces.component.UIComponent;
 import javax.faces.context.ExternalContext;
 import javax.faces.context.FacesContext;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Gerhard Petracek
@@ -53,9 +56,21 @@ public class DefaultWindowContextManager implements EditableWindowContextManager
 {
     private static final long serialVersionUID = 2872151847183166424L;
 
-    private Map<String, EditableWindowContext> windowContextMap =
+    //a window context can only be ended by the reaper in the meantime - so it's very unlikely to need a retry
+    private static final int MAX_WINDOW_CONTEXT_LOOKUP_ATTEMPTS = 8;
+
+    //in milliseconds
+    private static final long MAX_PASSIVATION_CHECK_INTERVAL = 60 * 1000L;
+
+    private ConcurrentMap<String, EditableWindowContext> windowContextMap =
             new ConcurrentHashMap<String, EditableWindowContext>();
 
+    //number of stored window contexts + reservations of requests which are creating a new window context
+    private final AtomicInteger windowContextCount = new AtomicInteger();
+
+    //ids of window contexts which were removed by the expiration reaper (it has no access to the session)
+    private final ConcurrentLinkedQueue<String> expiredWindowContextIds = new ConcurrentLinkedQueue<String>();
+
     private ProjectStage projectStage;
 
     private JsfAwareWindowContextConfig jsfAwareWindowContextConfig;
@@ -64,14 +79,24 @@ public class DefaultWindowContextManager implements EditableWindowContextManager
 
     private boolean urlParameterSupported = true;
 
+    //the window-id of a postback is a request parameter if it isn't stored in the component tree
+    private boolean windowIdStreamingEnabled;
+
     private WindowHandler windowHandler;
 
     private boolean projectStageDevelopment;
 
     private WindowContextQuotaHandler windowContextQuotaHandler;
 
-    //TODO add config + refactor DefaultWindowContextManager
-    private static final int DEFAULT_WINDOW_KEY_LENGTH = 3;
+    private WindowContextEvictionPolicy windowContextEvictionPolicy;
+
+    private int windowIdLength;
+
+    //in milliseconds - 0 if the passivation is deactivated
+    private long conversationPassivationIdleTime;
+
+    //the idle conversations get checked at most once per interval and not per request
+    private transient volatile long nextPassivationCheck;
 
     protected DefaultWindowContextManager(JsfAwareWindowContextConfig jsfAwareWindowContextConfig,
                                           ProjectStage projectStage)
@@ -85,10 +110,31 @@ public class DefaultWindowContextManager implements EditableWindowContextManager
     {
         this.windowHandler = this.jsfAwareWindowContextConfig.getWindowHandler();
         this.windowContextQuotaHandler = this.jsfAwareWindowContextConfig.getWindowContextQuotaHandler();
+        this.windowContextEvictionPolicy = this.jsfAwareWindowContextConfig.createWindowContextEvictionPolicy();
+
+        if(this.windowContextEvictionPolicy == null)
+        {
+            this.windowContextEvictionPolicy = new LruWindowContextEvictionPolicy();
+        }
         this.allowUnknownWindowIds = this.jsfAwareWindowContextConfig.isUnknownWindowIdsAllowed();
         this.urlParameterSupported = this.jsfAwareWindowContextConfig.isUrlParameterSupported();
+        this.windowIdStreamingEnabled = this.jsfAwareWindowContextConfig.isWindowIdStreamingEnabled();
+        this.windowIdLength = this.jsfAwareWindowContextConfig.getWindowIdLength();
+        this.conversationPassivationIdleTime =
+                this.jsfAwareWindowContextConfig.getConversationPassivationIdleTimeInMinutes() * 60L * 1000L;
 
         this.projectStageDevelopment = ProjectStage.Development.equals(this.projectStage);
+
+        initExistingWindowIdSet();
+
+        int maxStorageSizePerSession = this.jsfAwareWindowContextConfig.getMaxConversationStorageSizePerSessionInKB();
+        int maxStorageSize = this.jsfAwareWindowContextConfig.getMaxConversationStorageSizeInKB();
+
+        if(maxStorageSizePerSession > 0 || maxStorageSize > 0)
+        {
+            ConversationStorageBudget.activate(maxStorageSizePerSession,
+                    maxStorageSize, this.jsfAwareWindowContextConfig.getConversationEvictionPolicy());
+        }
     }
 
     public WindowContext getCurrentWindowContext()
@@ -100,8 +146,13 @@ public class DefaultWindowContextManager implements EditableWindowContextManager
             return windowContext;
         }
 
-        String windowContextId =
-                resolveWindowContextId(this.windowHandler, this.urlParameterSupported, this.allowUnknownWindowIds);
+        if(!this.expiredWindowContextIds.isEmpty())
+        {
+            removeExpiredWindowContextIds();
+        }
+
+        String windowContextId = resolveWindowContextId(this.windowHandler,
+                this.urlParameterSupported || this.windowIdStreamingEnabled, this.allowUnknownWindowIds);
 
         if (windowContextId == null)
         {
@@ -112,21 +163,33 @@ public class DefaultWindowContextManager implements EditableWindowContextManager
 
         RequestCache.setCurrentWindowContext(windowContext);
 
+        if(this.conversationPassivationIdleTime > 0)
+        {
+            passivateIdleConversations();
+        }
+
         return windowContext;
     }
 
-    private synchronized String createNewWindowContextId()
+    //not synchronized - the quota is enforced via a reservation of the new window context
+    private String createNewWindowContextId()
     {
         String windowContextId = this.windowHandler.createWindowId();
 
         ExternalContext externalContext = FacesContext.getCurrentInstance().getExternalContext();
 
-        if(this.windowContextQuotaHandler.checkQuota(getNumberOfNextWindowContext()))
+        if(!tryToReserveWindowContext())
         {
             if(!cleanupInactiveWindowContexts(this))
             {
                 this.windowContextQuotaHandler.handleQuotaViolation();
             }
+
+            if(!tryToReserveWindowContext())
+            {
+                //the quota handler decided to continue without releasing a window context
+                this.windowContextCount.incrementAndGet();
+            }
         }
 
         if(this.projectStageDevelopment &&
@@ -138,39 +201,165 @@ public class DefaultWindowContextManager implements EditableWindowContextManager
             windowContextId = convertToDevWindowContextId(windowContextId, getNumberOfNextWindowContext());
         }
 
-        storeCreatedWindowContextId(externalContext, windowContextId);
+        //the reservation is used for the new window context
+        if(this.windowContextMap.putIfAbsent(windowContextId, createWindowContext(windowContextId)) != null)
+        {
+            //e.g. the id of an expired window was recycled
+            this.windowContextCount.decrementAndGet();
+        }
+
+        storeCreatedWindowContextId(externalContext, windowContextId, this.windowContextMap.keySet());
         cacheWindowId(externalContext, windowContextId, this.allowUnknownWindowIds);
 
         return windowContextId;
     }
 
+    /**
+     * compare-and-swap based reservation - concurrent requests can't exceed the quota
+     *
+     * @return true if the quota allows an additional window context
+     */
+    boolean tryToReserveWindowContext()
+    {
+        int currentCount;
+
+        do
+        {
+            currentCount = this.windowContextCount.get();
+
+            if(this.windowContextQuotaHandler.checkQuota(currentCount + 1))
+            {
+                return false;
+            }
+        }
+        while(!this.windowContextCount.compareAndSet(currentCount, currentCount + 1));
+
+        return true;
+    }
+
+    int getWindowContextCount()
+    {
+        return this.windowContextCount.get();
+    }
+
     private int getNumberOfNextWindowContext()
     {
         return this.windowContextMap.size() + 1;
     }
 
-    public synchronized WindowContext getWindowContext(String windowContextId)
+    public WindowContext getWindowContext(String windowContextId)
+    {
+        EditableWindowContext result;
+
+        for(int i = 0; i < MAX_WINDOW_CONTEXT_LOOKUP_ATTEMPTS; i++)
+        {
+            result = lookupWindowContext(windowContextId);
+
+            //the expiration reaper ended the window context in the meantime -> retry
+            if(result.isActive())
+            {
+                if(result instanceof JsfWindowContext)
+                {
+                    ((JsfWindowContext)result).scheduleCleanup(this);
+                }
+
+                this.windowContextEvictionPolicy.windowContextAccessed(result);
+
+                return result;
+            }
+        }
+
+        throw new IllegalStateException("the window context with the id '" + windowContextId +
+                "' isn't active after " + MAX_WINDOW_CONTEXT_LOOKUP_ATTEMPTS + " attempts. " +
+                "a custom WindowContextFactory has to create window contexts which are active after #touch");
+    }
+
+    private EditableWindowContext lookupWindowContext(String windowContextId)
     {
         EditableWindowContext result = this.windowContextMap.get(windowContextId);
 
         if(result != null && !result.isActive())
         {
-            removeWindowContext(result);
+            //only the request which removes the expired instance is allowed to end it
+            if(removeFromWindowContextMap(result))
+            {
+                removeWindowContext(result);
+            }
             result = null;
         }
 
         if (result == null)
         {
-            result = createWindowContext(windowContextId);
+            EditableWindowContext newWindowContext = createWindowContext(windowContextId);
 
-            this.windowContextMap.put(windowContextId, result);
+            //a parallel request (e.g. ajax or an other tab) might have created the window context in the meantime
+            result = this.windowContextMap.putIfAbsent(windowContextId, newWindowContext);
+
+            if(result == null)
+            {
+                this.windowContextCount.incrementAndGet();
+                result = newWindowContext;
+            }
         }
 
         result.touch();
-
         return result;
     }
 
+    /**
+     * callback for the expiration reaper - there is no faces-context
+     *
+     * @param windowContext expired window context
+     */
+    void expireWindowContext(EditableWindowContext windowContext)
+    {
+        //a request which detected the expiration in the meantime is responsible for the cleanup
+        if(removeFromWindowContextMap(windowContext))
+        {
+            this.windowContextEvictionPolicy.windowContextRemoved(windowContext);
+            this.expiredWindowContextIds.add(windowContext.getId());
+            windowContext.end();
+        }
+    }
+
+    //the manager is session scoped - so the set gets created once per session without a lock on the session map
+    private void initExistingWindowIdSet()
+    {
+        FacesContext facesContext = FacesContext.getCurrentInstance();
+
+        //e.g. a manager which gets created outside of a request
+        if(facesContext == null)
+        {
+            return;
+        }
+
+        createExistingWindowIdSet(facesContext.getExternalContext(),
+                this.jsfAwareWindowContextConfig.getMaxWindowContextCount());
+    }
+
+    private void removeExpiredWindowContextIds()
+    {
+        ExternalContext externalContext = FacesContext.getCurrentInstance().getExternalContext();
+        String windowContextId;
+
+        while((windowContextId = this.expiredWindowContextIds.poll()) != null)
+        {
+            //don't remove the id of a new window context with the same id
+            if(!this.windowContextMap.containsKey(windowContextId))
+            {
+                removeExistingWindowId(externalContext, windowContextId);
+            }
+        }
+    }
+
+    /**
+     * @return the window context which should be removed in case of a quota violation
+     */
+    public EditableWindowContext getWindowContextToEvict()
+    {
+        return this.windowContextEvictionPolicy.getWindowContextToEvict();
+    }
+
     private EditableWindowContext createWindowContext(String windowContextId)
     {
         WindowContextFactory windowContextFactory = this.jsfAwareWindowContextConfig.getWindowContextFactory();
@@ -259,19 +448,69 @@ public class DefaultWindowContextManager implements EditableWindowContextManager
     public void removeWindowContext(EditableWindowContext windowContext)
     {
         JsfUtils.resetCaches();
-        this.windowContextMap.remove(windowContext.getId());
+        //don't remove a new instance which was created by a parallel request
+        removeFromWindowContextMap(windowContext);
+        this.windowContextEvictionPolicy.windowContextRemoved(windowContext);
+        cancelScheduledCleanup(windowContext);
 
         FacesContext facesContext = FacesContext.getCurrentInstance();
         ExternalContext externalContext = facesContext.getExternalContext();
         removeWindowContextIdHolderComponent(facesContext);
 
-        //reset existing information
-        removeExistingWindowId(externalContext, windowContext.getId());
+        //reset existing information - the id of a new window context (with the same id) has to stay
+        if(!this.windowContextMap.containsKey(windowContext.getId()))
+        {
+            removeExistingWindowId(externalContext, windowContext.getId());
+        }
         externalContext.getRequestMap().remove(WINDOW_CONTEXT_ID_PARAMETER_KEY);
 
         windowContext.endConversations();
     }
 
+    /**
+     * passivates the conversations of the session which weren't used within the configured idle time
+     * (see {@link org.apache.myfaces.extensions.cdi.javaee.jsf.api.ConfigParameter
+     * #CONVERSATION_PASSIVATION_IDLE_TIME}) - conversations which get used in parallel aren't affected
+     */
+    private void passivateIdleConversations()
+    {
+        long now = System.currentTimeMillis();
+
+        if(now < this.nextPassivationCheck)
+        {
+            return;
+        }
+
+        this.nextPassivationCheck =
+                now + Math.min(this.conversationPassivationIdleTime, MAX_PASSIVATION_CHECK_INTERVAL);
+
+        for (EditableWindowContext windowContext : this.windowContextMap.values())
+        {
+            if(windowContext instanceof JsfWindowContext)
+            {
+                ((JsfWindowContext)windowContext).passivateIdleConversations(this.conversationPassivationIdleTime);
+            }
+        }
+    }
+
+    private boolean removeFromWindowContextMap(EditableWindowContext windowContext)
+    {
+        if(this.windowContextMap.remove(windowContext.getId(), windowContext))
+        {
+            this.windowContextCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void cancelScheduledCleanup(EditableWindowContext windowContext)
+    {
+        if(windowContext instanceof JsfWindowContext)
+        {
+            ((JsfWindowContext)windowContext).cancelScheduledCleanup();
+        }
+    }
+
     private void removeWindowContextIdHolderComponent(FacesContext facesContext)
     {
         JsfUtils.resetCaches();
@@ -293,7 +532,7 @@ public class DefaultWindowContextManager implements EditableWindowContextManager
     {
         String devWindowContextId = currentWindowContextCount + windowContextId;
 
-        if(devWindowContextId.length() > DEFAULT_WINDOW_KEY_LENGTH + ("" + currentWindowContextCount).length())
+        if(devWindowContextId.length() > this.windowIdLength + ("" + currentWindowContextCount).length())
         {
             return windowContextId;
         }
@@ -307,15 +546,17 @@ public class DefaultWindowContextManager implements EditableWindowContextManager
 
     public void destroy()
     {
-        for (WindowContext windowContext : this.windowContextMap.values())
+        for (EditableWindowContext windowContext : this.windowContextMap.values())
         {
-            for (Conversation conversation :
-                    ((EditableWindowContext)windowContext).getConversations().values())
+            //the expiration reaper mustn't keep the window contexts of the destroyed session
+            cancelScheduledCleanup(windowContext);
+
+            for (Conversation conversation : windowContext.getConversations().values())
             {
                 conversation.end();
             }
 
-            ((EditableWindowContext)windowContext).removeInactiveConversations();
+            windowContext.removeInactiveConversations();
         }
     }
 
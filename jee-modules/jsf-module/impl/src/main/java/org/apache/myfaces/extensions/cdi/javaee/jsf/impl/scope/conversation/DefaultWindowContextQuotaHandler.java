@@ -81,7 +81,18 @@ public class DefaultWindowContextQuotaHandler implements WindowContextQuotaHandl
     private void removeEldestWindowContext(EditableWindowContextManager editableWindowContextManager,
                                            Collection<EditableWindowContext> activeWindowContexts)
     {
-        EditableWindowContext windowContextToRemove = findEldestWindowContext(activeWindowContexts);
+        EditableWindowContext windowContextToRemove;
+
+        if(editableWindowContextManager instanceof DefaultWindowContextManager)
+        {
+            //the eviction policy of the default implementation keeps the window contexts in the order of eviction
+            windowContextToRemove =
+                    ((DefaultWindowContextManager)editableWindowContextManager).getWindowContextToEvict();
+        }
+        else
+        {
+            windowContextToRemove = findEldestWindowContext(activeWindowContexts);
+        }
 
         if(windowContextToRemove != null)
         {
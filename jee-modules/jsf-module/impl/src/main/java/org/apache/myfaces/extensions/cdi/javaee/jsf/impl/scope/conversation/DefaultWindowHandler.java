@@ -21,12 +21,17 @@ package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
 import static org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.WindowContextManager
         .WINDOW_CONTEXT_ID_PARAMETER_KEY;
 
+import org.apache.myfaces.extensions.cdi.core.impl.utils.CodiUtils;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.request.RequestTypeResolver;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowHandler;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowIdGenerator;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.RequestCache;
 import static org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ConversationUtils
         .getExistingWindowIdSet;
 import static org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ConversationUtils
         .getWindowContextIdHolderComponent;
+import static org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ConversationUtils
+        .getJsfAwareWindowContextConfig;
 
 import javax.faces.context.ExternalContext;
 import javax.faces.context.FacesContext;
@@ -41,12 +46,16 @@ import java.util.Map;
 public class DefaultWindowHandler implements WindowHandler
 {
     private static final long serialVersionUID = -103516988654873089L;
-    private static final int DEFAULT_WINDOW_KEY_LENGTH = 3;
+
+    //upper limit for candidates which collide with existing window-ids (e.g. in case of a very short length)
+    private static final int MAX_WINDOW_ID_CREATION_ATTEMPTS = 64;
 
     private final String windowIdParameter = WINDOW_CONTEXT_ID_PARAMETER_KEY + "=";
 
     protected final boolean useWindowAwareUrlEncoding;
 
+    private transient volatile WindowIdGenerator windowIdGenerator;
+
     protected DefaultWindowHandler(boolean useWindowAwareUrlEncoding)
     {
         this.useWindowAwareUrlEncoding = useWindowAwareUrlEncoding;
@@ -56,7 +65,7 @@ public class DefaultWindowHandler implements WindowHandler
     {
         if(this.useWindowAwareUrlEncoding)
         {
-            return encodeActionURL(url, getCurrentWindowId());
+            return encodeActionURL(url, getWindowIdUrlParameter());
         }
         return url;
     }
@@ -88,7 +97,6 @@ public class DefaultWindowHandler implements WindowHandler
         return url;
     }
 
-    //TODO add a counter in case of project stage dev
     public String createWindowId()
     {
         String oldWindowContextId = resolveExpiredWindowContextId();
@@ -98,46 +106,57 @@ public class DefaultWindowHandler implements WindowHandler
             return oldWindowContextId;
         }
 
-        String uuid = UUID.randomUUID().toString().replace("-", "");
-
         ExternalContext externalContext = FacesContext.getCurrentInstance().getExternalContext();
+        WindowIdGenerator currentWindowIdGenerator = getWindowIdGenerator();
 
-        synchronized (externalContext.getSessionMap())
-        {
-            Set<String> existingWindowIdSet = getExistingWindowIdSet(externalContext);
+        //the set is thread-safe - no lock on the session map is required
+        Set<String> existingWindowIdSet = getExistingWindowIdSet(externalContext);
+
+        String windowId;
 
-            String shortUuid;
-            int startIndex = 0;
+        for(int i = 0; i < MAX_WINDOW_ID_CREATION_ATTEMPTS; i++)
+        {
+            windowId = currentWindowIdGenerator.createWindowId(externalContext);
 
-            while(startIndex + DEFAULT_WINDOW_KEY_LENGTH < uuid.length())
+            if(!existingWindowIdSet.contains(windowId))
             {
-                shortUuid = uuid.substring(startIndex, startIndex + DEFAULT_WINDOW_KEY_LENGTH);
-
-                if(!existingWindowIdSet.contains(shortUuid))
-                {
-                    uuid = shortUuid;
-                    break;
-                }
-                startIndex++;
+                return windowId;
             }
         }
 
-        return uuid;
+        //fallback in case of an exhausted id-space
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    private WindowIdGenerator getWindowIdGenerator()
+    {
+        if(this.windowIdGenerator == null)
+        {
+            this.windowIdGenerator = getJsfAwareWindowContextConfig().getWindowIdGenerator();
+        }
+        return this.windowIdGenerator;
     }
 
     //to avoid inconsistent behavior in case of re-activated but expired windows in combination with browser refreshes
     //-> get and recycle old id to avoid a redirect
     private String resolveExpiredWindowContextId()
     {
+        FacesContext facesContext = FacesContext.getCurrentInstance();
         WindowContextIdHolderComponent windowContextIdHolderComponent =
-                getWindowContextIdHolderComponent(FacesContext.getCurrentInstance());
+                getWindowContextIdHolderComponent(facesContext);
 
-        if(windowContextIdHolderComponent == null)
+        if(windowContextIdHolderComponent != null)
         {
-            return null;
+            return windowContextIdHolderComponent.getWindowContextId();
         }
 
-        return windowContextIdHolderComponent.getWindowContextId();
+        //in case of a streamed window-id the hidden field of the submitted form replaces the component
+        if(getJsfAwareWindowContextConfig().isWindowIdStreamingEnabled() &&
+                CodiUtils.getOrCreateScopedInstanceOfBeanByClass(RequestTypeResolver.class).isPostRequest())
+        {
+            return facesContext.getExternalContext().getRequestParameterMap().get(WINDOW_CONTEXT_ID_PARAMETER_KEY);
+        }
+        return null;
     }
 
     public String restoreWindowId(ExternalContext externalContext)
@@ -157,27 +176,44 @@ public class DefaultWindowHandler implements WindowHandler
         return RequestCache.getWindowContextManager().getCurrentWindowContext().getId();
     }
 
-    private String encodeActionURL(String url, String windowId)
+    //the parameter is created once per request (a window switch resets the cache)
+    private String getWindowIdUrlParameter()
     {
-        if(url.contains(this.windowIdParameter))
-        {
-            return url;
-        }
-        
-        StringBuilder newUrl = new StringBuilder(url);
+        String windowIdUrlParameter = RequestCache.getWindowIdUrlParameter();
 
-        if(url.contains("?"))
+        if(windowIdUrlParameter == null)
         {
-            newUrl.append("&");
+            windowIdUrlParameter = this.windowIdParameter + getCurrentWindowId();
+            RequestCache.setWindowIdUrlParameter(windowIdUrlParameter);
         }
-        else
+        return windowIdUrlParameter;
+    }
+
+    private String encodeActionURL(String url, String windowIdUrlParameter)
+    {
+        boolean queryStringFound = false;
+        char firstParameterChar = this.windowIdParameter.charAt(0);
+        char currentChar;
+
+        //one pass for both checks
+        for(int i = 0; i < url.length(); i++)
         {
-            newUrl.append("?");
+            currentChar = url.charAt(i);
+
+            if(currentChar == '?')
+            {
+                queryStringFound = true;
+            }
+            else if(currentChar == firstParameterChar && url.startsWith(this.windowIdParameter, i))
+            {
+                return url;
+            }
         }
 
-        newUrl.append(WINDOW_CONTEXT_ID_PARAMETER_KEY);
-        newUrl.append("=");
-        newUrl.append(windowId);
+        StringBuilder newUrl = RequestCache.getUrlBuilder();
+        newUrl.append(url);
+        newUrl.append(queryStringFound ? '&' : '?');
+        newUrl.append(windowIdUrlParameter);
         return newUrl.toString();
     }
 }
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowIdGenerator;
+
+import javax.faces.context.ExternalContext;
+import java.util.Random;
+
+/**
+ * Creates base-62 encoded window-ids with a configurable length.
+ * The random values don't depend on the session - so no lock and no session write is required.
+ * Candidates which collide with an existing window-id of the session get rejected by the window-handler.
+ *
+ * @author Gerhard Petracek
+ */
+public class DefaultWindowIdGenerator implements WindowIdGenerator
+{
+    private static final long serialVersionUID = -2563916457713281906L;
+
+    private static final char[] BASE_62_CHARS =
+            "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    //10 base-62 digits fit into the 63 positive bits of a long
+    private static final int DIGITS_PER_RANDOM_VALUE = 10;
+
+    //one instance per thread - a shared java.util.Random would be a contention point (cas on its seed)
+    private static final ThreadLocal<Random> RANDOM = new ThreadLocal<Random>()
+    {
+        @Override
+        protected Random initialValue()
+        {
+            return new Random();
+        }
+    };
+
+    private final int windowIdLength;
+
+    public DefaultWindowIdGenerator(int windowIdLength)
+    {
+        if (windowIdLength < 1)
+        {
+            throw new IllegalArgumentException("the length of a window-id has to be > 0 - current value: "
+                    + windowIdLength);
+        }
+        this.windowIdLength = windowIdLength;
+    }
+
+    public String createWindowId(ExternalContext externalContext)
+    {
+        Random random = RANDOM.get();
+
+        char[] windowId = new char[this.windowIdLength];
+        long value = 0;
+
+        for (int i = 0; i < this.windowIdLength; i++)
+        {
+            if (i % DIGITS_PER_RANDOM_VALUE == 0)
+            {
+                value = random.nextLong() & Long.MAX_VALUE;
+            }
+
+            windowId[i] = BASE_62_CHARS[(int) (value % BASE_62_CHARS.length)];
+            value /= BASE_62_CHARS.length;
+        }
+        return new String(windowId);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Optional application wide cleanup of expired window contexts and conversations
+ * (see {@link org.apache.myfaces.extensions.cdi.javaee.jsf.api.ConfigParameter#BACKGROUND_CLEANUP_INTERVAL}).
+ * The entries of all sessions are indexed by a {@link TimingWheel} which advances once per interval.
+ * A touch doesn't re-order the index - the new expiration time gets evaluated as soon as the old one is over.
+ * The reaper gets started by the application wide config and stopped at the shutdown of the container.
+ *
+ * @author Gerhard Petracek
+ */
+public final class ExpirationReaper
+{
+    private static final Logger logger = Logger.getLogger(ExpirationReaper.class.getName());
+
+    private static final int WHEEL_SIZE = 512;
+
+    private static volatile ExpirationReaper currentReaper;
+
+    private final TimingWheel timingWheel;
+
+    private final ScheduledExecutorService executorService;
+
+    private ExpirationReaper(int intervalInSeconds, final ClassLoader classLoader)
+    {
+        this.timingWheel = new TimingWheel(intervalInSeconds * 1000L * 1000L * 1000L, WHEEL_SIZE);
+
+        this.executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "CODI-ExpirationReaper");
+                thread.setDaemon(true);
+                //required for resolving the bean-manager during the destruction of beans
+                thread.setContextClassLoader(classLoader);
+                return thread;
+            }
+        });
+
+        this.executorService.scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                expireEntries();
+            }
+        }, intervalInSeconds, intervalInSeconds, TimeUnit.SECONDS);
+    }
+
+    public static synchronized void start(int intervalInSeconds)
+    {
+        if (currentReaper == null)
+        {
+            currentReaper = new ExpirationReaper(intervalInSeconds, ClassUtils.getClassLoader(null));
+        }
+    }
+
+    public static synchronized void stop()
+    {
+        if (currentReaper != null)
+        {
+            currentReaper.executorService.shutdownNow();
+            currentReaper = null;
+        }
+    }
+
+    public static boolean isActive()
+    {
+        return currentReaper != null;
+    }
+
+    /**
+     * @param expirableEntry entry which should be expired in the background
+     * @return the handle for cancelling the entry or null if the reaper isn't active
+     */
+    static ScheduledExpiration schedule(ExpirableEntry expirableEntry)
+    {
+        ExpirationReaper expirationReaper = currentReaper;
+
+        if (expirationReaper == null)
+        {
+            return null;
+        }
+
+        ScheduledExpiration scheduledExpiration = new ScheduledExpiration(expirableEntry);
+        expirationReaper.timingWheel.add(scheduledExpiration);
+        return scheduledExpiration;
+    }
+
+    private void expireEntries()
+    {
+        //all entries which expired since the last tick get expired together
+        for (ExpirableEntry expirableEntry : this.timingWheel.tick(System.nanoTime()))
+        {
+            try
+            {
+                expirableEntry.expire();
+            }
+            catch (RuntimeException e)
+            {
+                logger.log(Level.WARNING, "failed to expire " + expirableEntry, e);
+            }
+        }
+    }
+}
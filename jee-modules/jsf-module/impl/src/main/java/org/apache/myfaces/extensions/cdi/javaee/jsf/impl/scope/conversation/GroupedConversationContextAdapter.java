@@ -19,6 +19,7 @@
 package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
 
 import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.Conversation;
+import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.WindowContext;
 import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.ConversationConfig;
 import org.apache.myfaces.extensions.cdi.core.api.resolver.ConfigResolver;
 import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.AbstractConversationContextAdapter;
@@ -26,7 +27,6 @@ import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.
 import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.WindowContextManager;
 import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.BeanEntry;
 import static org.apache.myfaces.extensions.cdi.core.impl.utils.CodiUtils.getOrCreateScopedInstanceOfBeanByClass;
-import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ConversationUtils;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.RequestCache;
 import static org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ExceptionUtils
         .windowContextManagerNotEditableException;
@@ -34,11 +34,11 @@ import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.JsfAwareWindowContextConfig;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.EditableWindowContextManager;
 
+import javax.enterprise.context.spi.CreationalContext;
 import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
 import javax.faces.context.FacesContext;
-import java.lang.annotation.Annotation;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * jsf specific parts for managing grouped conversations
@@ -59,7 +59,14 @@ class GroupedConversationContextAdapter extends AbstractConversationContextAdapt
      */
     public boolean isActive()
     {
-        return FacesContext.getCurrentInstance().getExternalContext().getSession(false) != null;
+        FacesContext facesContext = FacesContext.getCurrentInstance();
+
+        if(facesContext == null)
+        {
+            //only a task which gets executed via RequestStateCarrier
+            return RequestCache.isRequestStatePropagated();
+        }
+        return facesContext.getExternalContext().getSession(false) != null;
     }
 
     protected WindowContextManager resolveWindowContextManager()
@@ -103,6 +110,81 @@ class GroupedConversationContextAdapter extends AbstractConversationContextAdapt
         ((EditableConversation) foundConversation).addBean(beanEntry);
     }
 
+    /**
+     * resolves the conversation just once for the lookup and the creation
+     */
+    protected <T> T resolveOrCreateBeanInstance(WindowContextManager windowContextManager,
+                                                Bean<T> bean,
+                                                CreationalContext<T> creationalContext)
+    {
+        if(!(windowContextManager instanceof EditableWindowContextManager))
+        {
+            throw windowContextManagerNotEditableException(windowContextManager);
+        }
+
+        EditableConversation foundConversation =
+                getConversation((EditableWindowContextManager)windowContextManager, bean);
+
+        //noinspection unchecked
+        T beanInstance = (T)foundConversation.getBean(bean.getBeanClass());
+
+        if(beanInstance != null)
+        {
+            return beanInstance;
+        }
+
+        BeanEntry<T> beanEntry = createBeanEntry(bean, creationalContext);
+
+        foundConversation.addBean(beanEntry);
+
+        return beanEntry.getBeanInstance();
+    }
+
+    protected Map<Bean<?>, Object> getBeanInstanceCache()
+    {
+        return RequestCache.getBeanInstanceCache();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected <T> Object createBeanInstanceCacheEntry(Bean<T> bean, T beanInstance)
+    {
+        //the conversation cache gets reset together with the bean instance cache
+        EditableConversation conversation = RequestCache.getConversation(ConversationKeyCache.getConversationKey(bean));
+
+        if(!(conversation instanceof DefaultConversation))
+        {
+            return null;
+        }
+
+        DefaultConversation defaultConversation = (DefaultConversation)conversation;
+
+        //read the generation before the instance gets checked - a parallel change leads to a new generation
+        int generation = defaultConversation.getGeneration();
+
+        if(!defaultConversation.isCurrentBeanInstance(bean.getBeanClass(), beanInstance))
+        {
+            return null;
+        }
+        return new CachedBeanInstance(defaultConversation, generation, beanInstance);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected <T> T getValidBeanInstance(Bean<T> bean, Object cacheEntry)
+    {
+        CachedBeanInstance cachedBeanInstance = (CachedBeanInstance)cacheEntry;
+
+        if(cachedBeanInstance.isValid())
+        {
+            //noinspection unchecked
+            return (T)cachedBeanInstance.getBeanInstance();
+        }
+        return null;
+    }
+
     protected ConversationConfig getConversationConfig()
     {
         return getOrCreateScopedInstanceOfBeanByClass(ConfigResolver.class).resolve(JsfAwareWindowContextConfig.class);
@@ -110,13 +192,14 @@ class GroupedConversationContextAdapter extends AbstractConversationContextAdapt
 
     private EditableConversation getConversation(EditableWindowContextManager windowContextManager, Bean<?> bean)
     {
-        Class conversationGroup = ConversationUtils.getConversationGroup(bean);
+        //the manager is session scoped - use the cached window context if possible (e.g. for async processing)
+        WindowContext windowContext = RequestCache.getCurrentWindowContext();
 
-        Set<Annotation> qualifiers = bean.getQualifiers();
-
-        conversationGroup = ConversationUtils.convertViewAccessScope(bean, conversationGroup, qualifiers);
+        if(windowContext == null)
+        {
+            windowContext = windowContextManager.getCurrentWindowContext();
+        }
 
-        return ((EditableWindowContext)windowContextManager.getCurrentWindowContext())
-                .getConversation(conversationGroup, qualifiers.toArray(new Annotation[qualifiers.size()]));
+        return ((EditableWindowContext)windowContext).getConversation(ConversationKeyCache.getConversationKey(bean));
     }
 }
\ No newline at end of file
@@ -18,20 +18,145 @@
  */
 package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
 
+import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.ConversationScoped;
+import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.ViewAccessScoped;
+import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.WindowScoped;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.ConfigParameter;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ConversationUtils;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.WindowContextManagerBeanHolder;
+
 import javax.enterprise.inject.spi.Extension;
 import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.AfterDeploymentValidation;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeforeShutdown;
 import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.ProcessBean;
 import javax.enterprise.event.Observes;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
 
 /**
- * extension for registering the adapter for grouped conversations
+ * extension for registering the adapter for grouped conversations.
+ * it also validates the conversation scoped beans and registers their conversation keys at deployment time.
  *
  * @author Gerhard Petracek
  */
 public class GroupedConversationContextExtension implements Extension
 {
+    private static final Logger logger = Logger.getLogger(GroupedConversationContextExtension.class.getName());
+
+    private List<String> invalidBeanDefinitions = new ArrayList<String>();
+
+    public void validateConversationScopedBean(@Observes ProcessBean processBeanEvent)
+    {
+        Bean<?> bean = processBeanEvent.getBean();
+
+        if (!ConversationScoped.class.equals(bean.getScope()))
+        {
+            return;
+        }
+
+        Class conversationGroup = ConversationUtils.getConversationGroup(bean);
+
+        if (WindowScoped.class.equals(conversationGroup) || ViewAccessScoped.class.equals(conversationGroup))
+        {
+            for (Annotation qualifier : bean.getQualifiers())
+            {
+                if (!DefaultConversationKey.isIgnoredQualifier(qualifier.annotationType()))
+                {
+                    this.invalidBeanDefinitions.add(bean.getBeanClass().getName() +
+                            ": It isn't allowed to use the qualifier " + qualifier.annotationType().getName() +
+                            " in combination with " + conversationGroup.getName());
+                }
+            }
+        }
+
+        ConversationKeyCache.register(bean);
+    }
+
+    /**
+     * Invalid bean definitions are just logged per default, because existing applications which use such
+     * qualifiers have to be migrated first. They are reported as deployment problem if
+     * {@link ConfigParameter#REJECT_INVALID_CONVERSATION_SCOPED_BEANS} is set to true (as system property).
+     *
+     * @param afterDeploymentValidation current event
+     */
+    public void reportInvalidBeanDefinitions(@Observes AfterDeploymentValidation afterDeploymentValidation)
+    {
+        if (this.invalidBeanDefinitions.isEmpty())
+        {
+            return;
+        }
+
+        StringBuilder message = new StringBuilder("invalid conversation scoped beans:");
+
+        for (String invalidBeanDefinition : this.invalidBeanDefinitions)
+        {
+            message.append("\n").append(invalidBeanDefinition);
+        }
+
+        if (isRejectInvalidBeanDefinitions())
+        {
+            afterDeploymentValidation.addDeploymentProblem(new IllegalStateException(message.toString()));
+        }
+        else
+        {
+            logger.warning(message.toString());
+        }
+        this.invalidBeanDefinitions.clear();
+    }
+
+    private boolean isRejectInvalidBeanDefinitions()
+    {
+        String rejectInvalidBeanDefinitions =
+                System.getProperty(ConfigParameter.REJECT_INVALID_CONVERSATION_SCOPED_BEANS);
+
+        if (rejectInvalidBeanDefinitions == null)
+        {
+            return ConfigParameter.REJECT_INVALID_CONVERSATION_SCOPED_BEANS_DEFAULT;
+        }
+        return Boolean.parseBoolean(rejectInvalidBeanDefinitions.trim());
+    }
+
     public void afterBeanDiscovery(@Observes AfterBeanDiscovery event, BeanManager manager)
     {
         event.addContext(new GroupedConversationContextAdapter(manager));
     }
+
+    public void resolveWindowContextManagerBean(@Observes AfterDeploymentValidation afterDeploymentValidation,
+                                                BeanManager beanManager)
+    {
+        try
+        {
+            WindowContextManagerBeanHolder.setWindowContextManagerBean(
+                    ConversationUtils.resolveConversationManagerBean(beanManager));
+        }
+        catch (IllegalStateException e)
+        {
+            afterDeploymentValidation.addDeploymentProblem(e);
+        }
+    }
+
+    public void resetWindowContextManagerBean(@Observes BeforeShutdown event)
+    {
+        WindowContextManagerBeanHolder.reset();
+    }
+
+    public void stopExpirationReaper(@Observes BeforeShutdown event)
+    {
+        ExpirationReaper.stop();
+    }
+
+    public void deactivateConversationStorageBudget(@Observes BeforeShutdown event)
+    {
+        ConversationStorageBudget.deactivate();
+    }
+
+    public void resetConversationKeyCache(@Observes BeforeShutdown event)
+    {
+        ConversationKeyCache.reset();
+    }
 }
@@ -31,18 +31,14 @@ import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowContextManagerFactory;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.EditableWindowContextManager;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.EditableWindowContext;
-import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ConversationUtils;
 
 import javax.enterprise.inject.Produces;
 import javax.enterprise.inject.Disposes;
 import javax.enterprise.inject.spi.InjectionPoint;
-import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.context.RequestScoped;
 import javax.enterprise.context.SessionScoped;
 import javax.enterprise.context.Dependent;
 import javax.inject.Named;
-import java.lang.annotation.Annotation;
-import java.util.Set;
 
 /**
  * @author Gerhard Petracek
@@ -107,15 +103,8 @@ final class InstanceProducer
 
             private Conversation findConversation()
             {
-                Bean<?> bean = injectionPoint.getBean();
-                Class conversationGroup = ConversationUtils.getConversationGroup(bean);
-
-                Set<Annotation> qualifiers = bean.getQualifiers();
-
-                conversationGroup = ConversationUtils.convertViewAccessScope(bean, conversationGroup, qualifiers);
-
                 return ((EditableWindowContext)windowContextManager.getCurrentWindowContext())
-                        .getConversation(conversationGroup, qualifiers.toArray(new Annotation[qualifiers.size()]));
+                        .getConversation(ConversationKeyCache.getConversationKey(injectionPoint.getBean()));
             }
         };
     }
@@ -18,6 +18,9 @@
  */
 package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
 
+import static org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ConversationUtils
+        .getJsfAwareWindowContextConfig;
+
 import javax.faces.context.ResponseStream;
 import javax.faces.context.ResponseWriter;
 import javax.faces.render.RenderKit;
@@ -33,6 +36,8 @@ class InterceptedRenderKit extends RenderKit
 {
     private final RenderKit wrapped;
 
+    private volatile Boolean windowIdStreamingEnabled;
+
     InterceptedRenderKit(RenderKit wrapped)
     {
         this.wrapped = wrapped;
@@ -62,11 +67,20 @@ class InterceptedRenderKit extends RenderKit
             return null;
         }
 
-        return new InterceptedResponseWriter(responseWriter);
+        return new InterceptedResponseWriter(responseWriter, isWindowIdStreamingEnabled());
     }
 
     public ResponseStream createResponseStream(OutputStream outputStream)
     {
         return wrapped.createResponseStream(outputStream);
     }
+
+    private boolean isWindowIdStreamingEnabled()
+    {
+        if(this.windowIdStreamingEnabled == null)
+        {
+            this.windowIdStreamingEnabled = getJsfAwareWindowContextConfig().isWindowIdStreamingEnabled();
+        }
+        return this.windowIdStreamingEnabled;
+    }
 }
@@ -20,15 +20,21 @@ package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
 
 import static org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ConversationUtils
         .addWindowContextIdHolderComponent;
+import static org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ConversationUtils.getWindowIdHiddenField;
 
+import javax.faces.component.UIComponent;
+import javax.faces.component.UIForm;
 import javax.faces.context.ResponseWriter;
 import javax.faces.context.ResponseWriterWrapper;
 import java.io.IOException;
+import java.io.Writer;
 
 /**
  * Adds
  * {@link WindowContextIdHolderComponent}
- * to the tree before the call of {@link #startDocument}
+ * to the tree before the call of {@link #startDocument} or writes the window-id as hidden field into every form
+ * which gets rendered by an {@link UIForm}
+ * (see {@link org.apache.myfaces.extensions.cdi.javaee.jsf.api.ConfigParameter#WINDOW_ID_STREAMING_ENABLED}).
  *
  * @author Gerhard Petracek
  */
@@ -36,20 +42,62 @@ class InterceptedResponseWriter extends ResponseWriterWrapper
 {
     private ResponseWriter wrapped;
 
-    InterceptedResponseWriter(ResponseWriter wrapped)
+    private final boolean windowIdStreamingEnabled;
+
+    //forms can't be nested - so it isn't required to track the depth
+    private boolean uiFormStarted;
+
+    InterceptedResponseWriter(ResponseWriter wrapped, boolean windowIdStreamingEnabled)
     {
         this.wrapped = wrapped;
+        this.windowIdStreamingEnabled = windowIdStreamingEnabled;
     }
 
     @Override
     public void startDocument()
             throws IOException
     {
-        addWindowContextIdHolderComponent();
+        if(!this.windowIdStreamingEnabled)
+        {
+            addWindowContextIdHolderComponent();
+        }
 
         wrapped.startDocument();
     }
 
+    @Override
+    public void startElement(String name, UIComponent component)
+            throws IOException
+    {
+        if(this.windowIdStreamingEnabled && component instanceof UIForm && "form".equalsIgnoreCase(name))
+        {
+            this.uiFormStarted = true;
+        }
+
+        wrapped.startElement(name, component);
+    }
+
+    @Override
+    public void endElement(String name)
+            throws IOException
+    {
+        if(this.uiFormStarted && "form".equalsIgnoreCase(name))
+        {
+            this.uiFormStarted = false;
+
+            char[] hiddenField = getWindowIdHiddenField();
+            wrapped.write(hiddenField, 0, hiddenField.length);
+        }
+
+        wrapped.endElement(name);
+    }
+
+    @Override
+    public ResponseWriter cloneWithWriter(Writer writer)
+    {
+        return new InterceptedResponseWriter(wrapped.cloneWithWriter(writer), this.windowIdStreamingEnabled);
+    }
+
     protected ResponseWriter getWrapped()
     {
         return this.wrapped;
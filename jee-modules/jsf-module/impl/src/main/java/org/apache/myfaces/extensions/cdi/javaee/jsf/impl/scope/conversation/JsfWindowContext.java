@@ -37,6 +37,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.lang.annotation.Annotation;
 
 /**
@@ -55,13 +56,19 @@ public class JsfWindowContext implements EditableWindowContext
 
     private final boolean projectStageDevelopment;
 
-    private Map<ConversationKey, EditableConversation> groupedConversations
+    private ConcurrentMap<ConversationKey, EditableConversation> groupedConversations
             = new ConcurrentHashMap<ConversationKey, EditableConversation>();
 
     private Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
 
     private final TimeoutExpirationEvaluator expirationEvaluator;
 
+    //the expiration reaper isn't serialized -> schedule it again e.g. after a session fail-over
+    private transient volatile ScheduledExpiration scheduledCleanup;
+
+    //set by the expiration reaper - a parallel request has to use a new window context
+    private volatile boolean ended;
+
     protected JsfWindowContext(String windowContextId,
                                JsfAwareWindowContextConfig jsfAwareWindowContextConfig,
                                boolean projectStageDevelopment)
@@ -90,6 +97,22 @@ public class JsfWindowContext implements EditableWindowContext
         this.attributes.clear();
     }
 
+    /**
+     * passivates the conversations which weren't used for the given time (see DefaultConversation#passivate)
+     *
+     * @param idleTimeInMillis min. time since the last access of a conversation
+     */
+    synchronized void passivateIdleConversations(long idleTimeInMillis)
+    {
+        for (EditableConversation conversation : this.groupedConversations.values())
+        {
+            if (conversation instanceof DefaultConversation)
+            {
+                ((DefaultConversation) conversation).passivate(idleTimeInMillis);
+            }
+        }
+    }
+
     public synchronized void endConversations(boolean forceEnd)
     {
         for (Map.Entry<ConversationKey, EditableConversation> conversationEntry : this.groupedConversations.entrySet())
@@ -101,9 +124,12 @@ public class JsfWindowContext implements EditableWindowContext
 
     public EditableConversation getConversation(Class conversationGroupKey, Annotation... qualifiers)
     {
-        ConversationKey conversationKey =
-                new DefaultConversationKey(conversationGroupKey, this.projectStageDevelopment, qualifiers);
+        return getConversation(
+                new DefaultConversationKey(conversationGroupKey, qualifiers));
+    }
 
+    public EditableConversation getConversation(ConversationKey conversationKey)
+    {
         EditableConversation conversation = RequestCache.getConversation(conversationKey);
 
         if(conversation == null)
@@ -119,8 +145,13 @@ public class JsfWindowContext implements EditableWindowContext
 
             if (conversation == null)
             {
-                conversation = createConversation(conversationGroupKey, qualifiers);
+                conversation = createConversation(conversationKey);
                 this.groupedConversations.put(conversationKey, conversation);
+
+                if(this.scheduledCleanup != null)
+                {
+                    scheduleConversationCleanup(conversationKey, conversation);
+                }
             }
 
             RequestCache.setConversation(conversationKey, conversation);
@@ -131,7 +162,7 @@ public class JsfWindowContext implements EditableWindowContext
     public Conversation endConversation(Class conversationGroupKey, Annotation... qualifiers)
     {
         ConversationKey conversationKey =
-                new DefaultConversationKey(conversationGroupKey, this.projectStageDevelopment, qualifiers);
+                new DefaultConversationKey(conversationGroupKey, qualifiers);
 
         Conversation conversation = this.groupedConversations.get(conversationKey);
 
@@ -163,7 +194,7 @@ public class JsfWindowContext implements EditableWindowContext
         if (forceEnd)
         {
             conversation.end();
-            return this.groupedConversations.remove(conversationKey);
+            return removeConversation(conversationKey, conversation);
         }
         else if(conversation instanceof EditableConversation)
         {
@@ -172,18 +203,45 @@ public class JsfWindowContext implements EditableWindowContext
             if(!conversation.isActive())
             {
                 conversation.end();
-                return this.groupedConversations.remove(conversationKey);
+                return removeConversation(conversationKey, conversation);
             }
         }
 
         return null;
     }
 
+    //don't remove a new conversation which was created in the meantime (e.g. during a background cleanup)
+    private EditableConversation removeConversation(ConversationKey conversationKey,
+                                                    EditableConversation conversation)
+    {
+        if(this.groupedConversations.remove(conversationKey, conversation))
+        {
+            conversationRemoved(conversation);
+            return conversation;
+        }
+        return null;
+    }
+
+    //has to be called for every conversation which leaves the window context
+    private void conversationRemoved(EditableConversation conversation)
+    {
+        if(conversation instanceof DefaultConversation)
+        {
+            ((DefaultConversation)conversation).cancelScheduledExpiration();
+
+            //a deactivated conversation isn't ended explicitly -> its size has to be released here
+            ((DefaultConversation)conversation).releaseEstimatedSize();
+        }
+    }
+
     public EditableConversation createConversation(Class conversationGroupKey, Annotation... qualifiers)
     {
-        ConversationKey conversationKey =
-                new DefaultConversationKey(conversationGroupKey, this.projectStageDevelopment, qualifiers);
+        return createConversation(
+                new DefaultConversationKey(conversationGroupKey, qualifiers));
+    }
 
+    private EditableConversation createConversation(ConversationKey conversationKey)
+    {
         ConversationFactory conversationFactory = this.jsfAwareWindowContextConfig.getConversationFactory();
 
         return conversationFactory.createConversation(conversationKey, this.jsfAwareWindowContextConfig);
@@ -201,7 +259,7 @@ public class JsfWindowContext implements EditableWindowContext
 
     public boolean isActive()
     {
-        return !this.expirationEvaluator.isExpired();
+        return !this.ended && !this.expirationEvaluator.isExpired();
     }
 
     public Date getLastAccess()
@@ -211,7 +269,132 @@ public class JsfWindowContext implements EditableWindowContext
 
     public void touch()
     {
-        this.expirationEvaluator.touch();
+        if(this.scheduledCleanup == null)
+        {
+            this.expirationEvaluator.touch();
+            return;
+        }
+
+        //the expiration reaper might end the window context in parallel
+        synchronized (this)
+        {
+            if(!this.ended)
+            {
+                this.expirationEvaluator.touch();
+            }
+        }
+    }
+
+    /**
+     * schedules the window context and its conversations for the expiration reaper (if it is active)
+     *
+     * @param windowContextManager manager which has to remove the window context after the expiration
+     */
+    void scheduleCleanup(final DefaultWindowContextManager windowContextManager)
+    {
+        if(this.scheduledCleanup != null || !ExpirationReaper.isActive())
+        {
+            return;
+        }
+
+        synchronized (this)
+        {
+            if(this.scheduledCleanup != null)
+            {
+                return;
+            }
+
+            this.scheduledCleanup = ExpirationReaper.schedule(new ExpirableEntry()
+            {
+                public long getExpirationTime()
+                {
+                    return expirationEvaluator.getExpirationTime();
+                }
+
+                public void expire()
+                {
+                    if(markAsEnded())
+                    {
+                        windowContextManager.expireWindowContext(JsfWindowContext.this);
+                    }
+                }
+            });
+
+            for (Map.Entry<ConversationKey, EditableConversation> conversationEntry :
+                    this.groupedConversations.entrySet())
+            {
+                scheduleConversationCleanup(conversationEntry.getKey(), conversationEntry.getValue());
+            }
+        }
+    }
+
+    /**
+     * drops the entries of the window context and its conversations from the expiration reaper
+     */
+    void cancelScheduledCleanup()
+    {
+        ScheduledExpiration currentScheduledCleanup = this.scheduledCleanup;
+
+        if(currentScheduledCleanup != null)
+        {
+            currentScheduledCleanup.cancel();
+        }
+
+        for (EditableConversation conversation : this.groupedConversations.values())
+        {
+            conversationRemoved(conversation);
+        }
+    }
+
+    //a request which touched the window context in the meantime wins
+    private synchronized boolean markAsEnded()
+    {
+        if(this.ended || !this.expirationEvaluator.isExpired())
+        {
+            return false;
+        }
+        this.ended = true;
+        return true;
+    }
+
+    //conversations which depend on the current view or window can't expire in the background
+    private void scheduleConversationCleanup(final ConversationKey conversationKey,
+                                             final EditableConversation conversation)
+    {
+        if(!(conversation instanceof DefaultConversation))
+        {
+            return;
+        }
+
+        ConversationExpirationEvaluator conversationExpirationEvaluator =
+                ((DefaultConversation)conversation).getExpirationEvaluator();
+
+        if(!(conversationExpirationEvaluator instanceof TimeoutExpirationEvaluator))
+        {
+            return;
+        }
+
+        final TimeoutExpirationEvaluator timeoutExpirationEvaluator =
+                (TimeoutExpirationEvaluator)conversationExpirationEvaluator;
+
+        ScheduledExpiration scheduledExpiration = ExpirationReaper.schedule(new ExpirableEntry()
+        {
+            public long getExpirationTime()
+            {
+                return timeoutExpirationEvaluator.getExpirationTime();
+            }
+
+            public void expire()
+            {
+                //the conversation might have been used in the meantime
+                if(timeoutExpirationEvaluator.isExpired())
+                {
+                    endAndRemoveConversation(conversationKey, conversation, true);
+                }
+            }
+        });
+
+        ((DefaultConversation)conversation).setScheduledExpiration(scheduledExpiration);
     }
 
     public void removeInactiveConversations()
@@ -226,6 +409,7 @@ public class JsfWindowContext implements EditableWindowContext
             if (!conversation.getActiveState())
             {
                 conversations.remove();
+                conversationRemoved(conversation);
             }
         }
     }
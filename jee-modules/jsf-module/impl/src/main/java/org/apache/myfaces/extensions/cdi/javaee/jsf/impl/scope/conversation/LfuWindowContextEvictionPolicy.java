@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.EditableWindowContext;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Evicts the least frequently used window context (the least recently used one in case of the same frequency).
+ * The window contexts are kept sorted by frequency - an update and the selection are O(log n).
+ *
+ * @author Gerhard Petracek
+ */
+public class LfuWindowContextEvictionPolicy extends AbstractWindowContextEvictionPolicy
+{
+    private static final long serialVersionUID = 8573094214496182530L;
+
+    private final Map<String, FrequencyEntry> entries = new HashMap<String, FrequencyEntry>();
+
+    private final TreeSet<FrequencyEntry> evictionOrder = new TreeSet<FrequencyEntry>();
+
+    //logical timestamp - it's unique per access and stays valid after a session failover
+    private long accessSequence;
+
+    @Override
+    protected void recordAccess(EditableWindowContext windowContext)
+    {
+        FrequencyEntry frequencyEntry = this.entries.get(windowContext.getId());
+
+        if(frequencyEntry != null)
+        {
+            //the position has to be updated - it's only possible to find it with the old values
+            this.evictionOrder.remove(frequencyEntry);
+
+            if(frequencyEntry.windowContext != windowContext)
+            {
+                frequencyEntry = null;
+            }
+        }
+
+        if(frequencyEntry == null)
+        {
+            frequencyEntry = new FrequencyEntry(windowContext);
+            this.entries.put(windowContext.getId(), frequencyEntry);
+        }
+
+        frequencyEntry.accessCount++;
+        frequencyEntry.lastAccess = ++this.accessSequence;
+        this.evictionOrder.add(frequencyEntry);
+    }
+
+    @Override
+    protected void removeEntry(EditableWindowContext windowContext)
+    {
+        FrequencyEntry frequencyEntry = this.entries.get(windowContext.getId());
+
+        if(frequencyEntry != null && frequencyEntry.windowContext == windowContext)
+        {
+            this.entries.remove(windowContext.getId());
+            this.evictionOrder.remove(frequencyEntry);
+        }
+    }
+
+    @Override
+    protected EditableWindowContext getFirstEntry()
+    {
+        if(this.evictionOrder.isEmpty())
+        {
+            return null;
+        }
+        return this.evictionOrder.first().windowContext;
+    }
+
+    @Override
+    protected EditableWindowContext[] getEntries()
+    {
+        EditableWindowContext[] result = new EditableWindowContext[this.evictionOrder.size()];
+
+        int i = 0;
+        for(FrequencyEntry frequencyEntry : this.evictionOrder)
+        {
+            result[i++] = frequencyEntry.windowContext;
+        }
+        return result;
+    }
+
+    private void writeObject(ObjectOutputStream objectOutputStream) throws IOException
+    {
+        lockEntries();
+        try
+        {
+            objectOutputStream.defaultWriteObject();
+        }
+        finally
+        {
+            unlockEntries();
+        }
+    }
+
+    private static class FrequencyEntry implements Comparable<FrequencyEntry>, Serializable
+    {
+        private static final long serialVersionUID = -3395746816223017604L;
+
+        private final EditableWindowContext windowContext;
+
+        private long accessCount;
+
+        private long lastAccess;
+
+        private FrequencyEntry(EditableWindowContext windowContext)
+        {
+            this.windowContext = windowContext;
+        }
+
+        public int compareTo(FrequencyEntry frequencyEntry)
+        {
+            if(this.accessCount != frequencyEntry.accessCount)
+            {
+                return this.accessCount < frequencyEntry.accessCount ? -1 : 1;
+            }
+
+            if(this.lastAccess != frequencyEntry.lastAccess)
+            {
+                return this.lastAccess < frequencyEntry.lastAccess ? -1 : 1;
+            }
+            return 0;
+        }
+    }
+}
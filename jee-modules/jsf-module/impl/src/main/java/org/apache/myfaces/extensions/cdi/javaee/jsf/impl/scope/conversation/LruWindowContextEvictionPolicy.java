@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.EditableWindowContext;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Evicts the least recently used window context.
+ * The window contexts are kept in the order of their last access - the selection is O(1).
+ *
+ * @author Gerhard Petracek
+ */
+public class LruWindowContextEvictionPolicy extends AbstractWindowContextEvictionPolicy
+{
+    private static final long serialVersionUID = -1254893264712098537L;
+
+    //insertion order - an access re-inserts the window context (#get doesn't change the order)
+    private final LinkedHashMap<String, EditableWindowContext> accessOrder =
+            new LinkedHashMap<String, EditableWindowContext>();
+
+    @Override
+    protected void recordAccess(EditableWindowContext windowContext)
+    {
+        this.accessOrder.remove(windowContext.getId());
+        this.accessOrder.put(windowContext.getId(), windowContext);
+    }
+
+    @Override
+    protected void removeEntry(EditableWindowContext windowContext)
+    {
+        //an instance which got registered in the meantime stays untouched
+        if(this.accessOrder.get(windowContext.getId()) == windowContext)
+        {
+            this.accessOrder.remove(windowContext.getId());
+        }
+    }
+
+    @Override
+    protected EditableWindowContext getFirstEntry()
+    {
+        Iterator<EditableWindowContext> windowContextIterator = this.accessOrder.values().iterator();
+
+        if(windowContextIterator.hasNext())
+        {
+            return windowContextIterator.next();
+        }
+        return null;
+    }
+
+    @Override
+    protected EditableWindowContext[] getEntries()
+    {
+        return this.accessOrder.values().toArray(new EditableWindowContext[this.accessOrder.size()]);
+    }
+
+    private void writeObject(ObjectOutputStream objectOutputStream) throws IOException
+    {
+        lockEntries();
+        try
+        {
+            objectOutputStream.defaultWriteObject();
+        }
+        finally
+        {
+            unlockEntries();
+        }
+    }
+}
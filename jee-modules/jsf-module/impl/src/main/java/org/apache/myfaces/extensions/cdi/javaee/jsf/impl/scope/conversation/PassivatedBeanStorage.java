@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The serialized form of a {@link BeanStorage} which is stored outside of the heap (in a direct buffer).
+ * The whole storage (bean instances, beans and creational contexts) gets serialized -
+ * it's the same which happens if the servlet container passivates the session.
+ *
+ * @author Gerhard Petracek
+ */
+final class PassivatedBeanStorage
+{
+    private static final Logger logger = Logger.getLogger(PassivatedBeanStorage.class.getName());
+
+    private final ByteBuffer serializedBeanStorage;
+
+    private final int beanCount;
+
+    private PassivatedBeanStorage(ByteBuffer serializedBeanStorage, int beanCount)
+    {
+        this.serializedBeanStorage = serializedBeanStorage;
+        this.beanCount = beanCount;
+    }
+
+    /**
+     * @param beanStorage storage which isn't used by a request
+     * @return the passivated storage or null if it isn't possible to serialize it
+     */
+    static PassivatedBeanStorage passivate(BeanStorage beanStorage)
+    {
+        byte[] serializedBeanStorage;
+        try
+        {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
+            objectOutputStream.writeObject(beanStorage);
+            objectOutputStream.close();
+            serializedBeanStorage = byteArrayOutputStream.toByteArray();
+        }
+        catch (IOException e)
+        {
+            //the storage stays in the heap
+            logger.log(Level.FINE, "failed to passivate a conversation", e);
+            return null;
+        }
+
+        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(serializedBeanStorage.length);
+        byteBuffer.put(serializedBeanStorage);
+        byteBuffer.flip();
+
+        return new PassivatedBeanStorage(byteBuffer, beanStorage.getBeanCount());
+    }
+
+    BeanStorage restore()
+    {
+        byte[] serializedBeanStorage = new byte[this.serializedBeanStorage.remaining()];
+        this.serializedBeanStorage.duplicate().get(serializedBeanStorage);
+
+        try
+        {
+            ObjectInputStream objectInputStream =
+                    new ContextClassLoaderObjectInputStream(new ByteArrayInputStream(serializedBeanStorage));
+
+            BeanStorage result = (BeanStorage) objectInputStream.readObject();
+            objectInputStream.close();
+            return result;
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("failed to restore a passivated conversation", e);
+        }
+        catch (ClassNotFoundException e)
+        {
+            throw new IllegalStateException("failed to restore a passivated conversation", e);
+        }
+    }
+
+    int getBeanCount()
+    {
+        return this.beanCount;
+    }
+
+    //the classes of the beans are only visible for the class-loader of the application
+    private static class ContextClassLoaderObjectInputStream extends ObjectInputStream
+    {
+        private ContextClassLoaderObjectInputStream(InputStream inputStream) throws IOException
+        {
+            super(inputStream);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass objectStreamClass)
+                throws IOException, ClassNotFoundException
+        {
+            try
+            {
+                return Class.forName(objectStreamClass.getName(), false, ClassUtils.getClassLoader(null));
+            }
+            catch (ClassNotFoundException e)
+            {
+                return super.resolveClass(objectStreamClass);
+            }
+        }
+    }
+}
@@ -72,7 +72,8 @@ public class RedirectedConversationAwareExternalContext extends ExternalContext
         sendRedirect(this.wrapped, url, windowHandler);
     }
 
-    private synchronized void lazyInit()
+    //the instance is bound to the faces-context of the current request - no synchronization needed
+    private void lazyInit()
     {
         if(this.windowHandler == null)
         {
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+/**
+ * Entry of the {@link ExpirationReaper} which can be cancelled, e.g. if the session gets destroyed.
+ * A cancelled entry releases the wrapped entry immediately and gets dropped by the next tick of its bucket.
+ *
+ * @author Gerhard Petracek
+ */
+final class ScheduledExpiration implements ExpirableEntry
+{
+    private volatile ExpirableEntry expirableEntry;
+
+    private volatile long cancellationTime;
+
+    ScheduledExpiration(ExpirableEntry expirableEntry)
+    {
+        this.expirableEntry = expirableEntry;
+    }
+
+    public long getExpirationTime()
+    {
+        ExpirableEntry currentEntry = this.expirableEntry;
+
+        if (currentEntry == null)
+        {
+            return this.cancellationTime;
+        }
+        return currentEntry.getExpirationTime();
+    }
+
+    public void expire()
+    {
+        ExpirableEntry currentEntry = this.expirableEntry;
+
+        if (currentEntry != null)
+        {
+            this.expirableEntry = null;
+            currentEntry.expire();
+        }
+    }
+
+    void cancel()
+    {
+        this.cancellationTime = System.nanoTime();
+        this.expirableEntry = null;
+    }
+}
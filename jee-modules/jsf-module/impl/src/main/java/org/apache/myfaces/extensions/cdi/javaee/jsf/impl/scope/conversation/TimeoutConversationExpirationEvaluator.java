@@ -33,6 +33,6 @@ class TimeoutConversationExpirationEvaluator extends TimeoutExpirationEvaluator
 
     public void expire()
     {
-        this.lastAccess = null;
+        this.expired = true;
     }
 }
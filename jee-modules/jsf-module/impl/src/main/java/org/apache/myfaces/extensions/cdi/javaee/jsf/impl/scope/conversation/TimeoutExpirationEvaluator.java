@@ -20,6 +20,10 @@ package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
 
 import java.util.Date;
 import java.io.Serializable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 
 /**
  * @author Gerhard Petracek
@@ -28,28 +32,90 @@ public class TimeoutExpirationEvaluator implements Serializable
 {
     private static final long serialVersionUID = -1132091879142732148L;
 
-    private final long timeoutInMs;
+    //the fields of the old (date based) version are kept to restore sessions which were serialized by it
+    private static final ObjectStreamField[] serialPersistentFields = new ObjectStreamField[] {
+            new ObjectStreamField("timeoutInNanos", long.class),
+            new ObjectStreamField("expired", boolean.class),
+            new ObjectStreamField("idleTimeInNanos", long.class),
+            new ObjectStreamField("timeoutInMs", long.class),
+            new ObjectStreamField("lastAccess", Date.class)};
 
-    protected Date lastAccess;
+    private long timeoutInNanos;
+
+    //based on System#nanoTime to avoid the creation of a Date instance for every touch
+    private transient volatile long lastAccess = System.nanoTime();
+
+    protected volatile boolean expired = true;
 
     protected TimeoutExpirationEvaluator(int timeoutInMinutes)
     {
-        this.timeoutInMs = timeoutInMinutes * 60000;
+        this.timeoutInNanos = timeoutInMinutes * 60L * 1000L * 1000L * 1000L;
     }
 
     public boolean isExpired()
     {
-        return this.lastAccess == null ||
-                (this.lastAccess.getTime() + this.timeoutInMs) < System.currentTimeMillis();
+        return this.expired || System.nanoTime() - this.lastAccess > this.timeoutInNanos;
     }
 
     public void touch()
     {
-        this.lastAccess = new Date();
+        this.lastAccess = System.nanoTime();
+        this.expired = false;
     }
 
     Date getLastAccess()
     {
-        return lastAccess;
+        if(this.expired)
+        {
+            return null;
+        }
+        return new Date(System.currentTimeMillis() - ((System.nanoTime() - this.lastAccess) / 1000000L));
+    }
+
+    /**
+     * @return the expiration time based on {@link System#nanoTime()}
+     */
+    long getExpirationTime()
+    {
+        if(this.expired)
+        {
+            return this.lastAccess;
+        }
+        return this.lastAccess + this.timeoutInNanos;
+    }
+
+    //nano time values aren't comparable across different jvms (e.g. in case of a session fail-over)
+    private void writeObject(ObjectOutputStream objectOutputStream) throws IOException
+    {
+        ObjectOutputStream.PutField fields = objectOutputStream.putFields();
+        fields.put("timeoutInNanos", this.timeoutInNanos);
+        fields.put("expired", this.expired);
+        fields.put("idleTimeInNanos", System.nanoTime() - this.lastAccess);
+        objectOutputStream.writeFields();
+    }
+
+    private void readObject(ObjectInputStream objectInputStream) throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream.GetField fields = objectInputStream.readFields();
+
+        if (fields.defaulted("timeoutInNanos"))
+        {
+            //serialized by the old version
+            Date oldLastAccess = (Date) fields.get("lastAccess", null);
+
+            this.timeoutInNanos = fields.get("timeoutInMs", 0L) * 1000L * 1000L;
+            this.expired = oldLastAccess == null;
+            this.lastAccess = System.nanoTime();
+
+            if (oldLastAccess != null)
+            {
+                this.lastAccess -= (System.currentTimeMillis() - oldLastAccess.getTime()) * 1000L * 1000L;
+            }
+            return;
+        }
+
+        this.timeoutInNanos = fields.get("timeoutInNanos", 0L);
+        this.expired = fields.get("expired", true);
+        this.lastAccess = System.nanoTime() - fields.get("idleTimeInNanos", 0L);
     }
 }
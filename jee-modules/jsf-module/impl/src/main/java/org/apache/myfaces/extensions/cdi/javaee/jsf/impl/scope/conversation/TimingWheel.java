@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timing wheel which is used as index of the {@link ExpirationReaper}.
+ * New entries are added lock-free and get transferred into the buckets by the thread which advances the wheel.
+ * Only this thread is allowed to call {@link #tick(long)}.
+ *
+ * @author Gerhard Petracek
+ */
+class TimingWheel
+{
+    private final List<WheelEntry>[] buckets;
+
+    private final int mask;
+
+    private final long tickDurationInNanos;
+
+    private final long startTime;
+
+    private final Queue<WheelEntry> pendingEntries = new ConcurrentLinkedQueue<WheelEntry>();
+
+    private long currentTick;
+
+    /**
+     * @param tickDurationInNanos duration of a tick
+     * @param wheelSize number of buckets - has to be a power of two
+     */
+    @SuppressWarnings({"unchecked"})
+    TimingWheel(long tickDurationInNanos, int wheelSize)
+    {
+        if (wheelSize <= 0 || (wheelSize & (wheelSize - 1)) != 0)
+        {
+            throw new IllegalArgumentException("the size of the wheel has to be a power of two: " + wheelSize);
+        }
+
+        //generic arrays can't be created directly
+        this.buckets = new List[wheelSize];
+
+        for (int i = 0; i < wheelSize; i++)
+        {
+            this.buckets[i] = new ArrayList<WheelEntry>();
+        }
+
+        this.mask = wheelSize - 1;
+        this.tickDurationInNanos = tickDurationInNanos;
+        this.startTime = System.nanoTime();
+    }
+
+    void add(ExpirableEntry expirableEntry)
+    {
+        this.pendingEntries.offer(new WheelEntry(expirableEntry));
+    }
+
+    /**
+     * advances the wheel up to the given time
+     *
+     * @param now current time (based on {@link System#nanoTime()})
+     * @return all entries which expired since the last tick
+     */
+    List<ExpirableEntry> tick(long now)
+    {
+        List<ExpirableEntry> expiredEntries = new ArrayList<ExpirableEntry>();
+        List<WheelEntry> touchedEntries = new ArrayList<WheelEntry>();
+
+        long targetTick = (now - this.startTime) / this.tickDurationInNanos;
+
+        while (this.currentTick <= targetTick)
+        {
+            transferPendingEntries();
+
+            Iterator<WheelEntry> wheelEntries = this.buckets[(int) (this.currentTick & this.mask)].iterator();
+            WheelEntry wheelEntry;
+            long expirationTime;
+
+            while (wheelEntries.hasNext())
+            {
+                wheelEntry = wheelEntries.next();
+
+                if (wheelEntry.remainingRounds > 0)
+                {
+                    wheelEntry.remainingRounds--;
+                    continue;
+                }
+
+                wheelEntries.remove();
+                expirationTime = wheelEntry.expirableEntry.getExpirationTime();
+
+                if (expirationTime - now > 0)
+                {
+                    touchedEntries.add(wheelEntry);
+                }
+                else
+                {
+                    expiredEntries.add(wheelEntry.expirableEntry);
+                }
+            }
+
+            this.currentTick++;
+
+            for (WheelEntry touchedEntry : touchedEntries)
+            {
+                schedule(touchedEntry, touchedEntry.expirableEntry.getExpirationTime());
+            }
+            touchedEntries.clear();
+        }
+
+        return expiredEntries;
+    }
+
+    private void transferPendingEntries()
+    {
+        WheelEntry wheelEntry;
+
+        while ((wheelEntry = this.pendingEntries.poll()) != null)
+        {
+            schedule(wheelEntry, wheelEntry.expirableEntry.getExpirationTime());
+        }
+    }
+
+    private void schedule(WheelEntry wheelEntry, long expirationTime)
+    {
+        long expirationTick = (expirationTime - this.startTime) / this.tickDurationInNanos;
+
+        if (expirationTick < this.currentTick)
+        {
+            expirationTick = this.currentTick;
+        }
+
+        wheelEntry.remainingRounds = (expirationTick - this.currentTick) / this.buckets.length;
+        this.buckets[(int) (expirationTick & this.mask)].add(wheelEntry);
+    }
+
+    private static class WheelEntry
+    {
+        private final ExpirableEntry expirableEntry;
+
+        private long remainingRounds;
+
+        private WheelEntry(ExpirableEntry expirableEntry)
+        {
+            this.expirableEntry = expirableEntry;
+        }
+    }
+}
@@ -20,6 +20,8 @@ package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
 
 import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.AfterPhase;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.PhaseId;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.request.AfterFacesRequest;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.request.BeforeFacesRequest;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.api.request.RequestTypeResolver;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.RequestCache;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ConversationUtils;
@@ -44,6 +46,18 @@ import java.io.IOException;
 @SuppressWarnings({"UnusedDeclaration"})
 final class WindowContextManagerObserver
 {
+    //a pooled thread might still hold the state of a previous request which failed before the rendering
+    protected void resetRequestCache(@Observes @BeforeFacesRequest FacesContext facesContext)
+    {
+        RequestCache.releaseCache();
+    }
+
+    //also called for requests without a render response phase (e.g. redirects or a completed response)
+    protected void releaseRequestCache(@Observes @AfterFacesRequest FacesContext facesContext)
+    {
+        RequestCache.releaseCache();
+    }
+
     //don't change/optimize this observer!!!
     protected void cleanup(@Observes @AfterPhase(PhaseId.RESTORE_VIEW) PhaseEvent phaseEvent,
                            RequestTypeResolver requestTypeResolver,
@@ -84,8 +98,20 @@ final class WindowContextManagerObserver
     {
         storeCurrentViewIdAsOldViewId(phaseEvent.getFacesContext());
 
-        cleanupInactiveWindowContexts(windowContextManager);
-        RequestCache.resetCache();
+        //expired window contexts get removed by the expiration reaper
+        if(!ExpirationReaper.isActive())
+        {
+            cleanupInactiveWindowContexts(windowContextManager);
+        }
+
+        if(ConversationStorageBudget.isActive())
+        {
+            ConversationStorageBudget.enforce(windowContextManager,
+                    (EditableWindowContext)windowContextManager.getCurrentWindowContext());
+        }
+
+        //it's released again after the request - this is just the fallback if the FacesContext isn't wrapped
+        RequestCache.releaseCache();
     }
 
     /**
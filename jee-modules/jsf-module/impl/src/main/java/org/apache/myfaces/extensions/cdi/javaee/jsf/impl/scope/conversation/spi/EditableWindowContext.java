@@ -59,4 +59,10 @@ public interface EditableWindowContext extends WindowContext
      * @return a new conversation for the given group
      */
     EditableConversation getConversation(Class conversationGroup, Annotation... qualifiers);
+
+    /**
+     * @param conversationKey key of the conversation in question
+     * @return the current conversation for the given key or a new conversation
+     */
+    EditableConversation getConversation(ConversationKey conversationKey);
 }
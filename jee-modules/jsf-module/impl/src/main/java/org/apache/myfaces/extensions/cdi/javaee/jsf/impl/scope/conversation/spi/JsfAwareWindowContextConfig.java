@@ -38,5 +38,26 @@ public abstract class JsfAwareWindowContextConfig extends AbstractCodiConfig
 
     public abstract WindowContextQuotaHandler getWindowContextQuotaHandler();
 
+    public abstract WindowIdGenerator getWindowIdGenerator();
+
+    /**
+     * @return a new eviction policy for a window context manager
+     */
+    public abstract WindowContextEvictionPolicy createWindowContextEvictionPolicy();
+
     public abstract boolean isInitialRedirectDisable();
+
+    public abstract int getBackgroundCleanupIntervalInSeconds();
+
+    public abstract int getMaxConversationStorageSizePerSessionInKB();
+
+    public abstract int getMaxConversationStorageSizeInKB();
+
+    public abstract ConversationEvictionPolicy getConversationEvictionPolicy();
+
+    public abstract boolean isWindowIdStreamingEnabled();
+
+    public abstract int getWindowIdLength();
+
+    public abstract int getConversationPassivationIdleTimeInMinutes();
 }
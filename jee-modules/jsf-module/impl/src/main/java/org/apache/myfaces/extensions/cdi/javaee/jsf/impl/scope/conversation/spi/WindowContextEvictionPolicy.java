@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi;
+
+import java.io.Serializable;
+
+/**
+ * Keeps the window contexts of a window context manager in the order of eviction,
+ * so that a quota violation doesn't require a scan of all window contexts.
+ * Implementations have to be thread-safe - #windowContextAccessed is invoked by every lookup of a window context.
+ * A new instance is used for every window context manager.
+ *
+ * @author Gerhard Petracek
+ */
+public interface WindowContextEvictionPolicy extends Serializable
+{
+    void windowContextAccessed(EditableWindowContext windowContext);
+
+    /**
+     * @param windowContext removed window context - it has to be ignored if it isn't the indexed instance
+     */
+    void windowContextRemoved(EditableWindowContext windowContext);
+
+    /**
+     * @return the window context which should be removed next - null if there isn't a known window context
+     */
+    EditableWindowContext getWindowContextToEvict();
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi;
+
+import javax.faces.context.ExternalContext;
+import java.io.Serializable;
+
+/**
+ * Creates the candidates for new window-ids.
+ * The {@link WindowHandler} checks the candidates against the existing window-ids of the session.
+ *
+ * @author Gerhard Petracek
+ */
+public interface WindowIdGenerator extends Serializable
+{
+    /**
+     * @param externalContext external context of the current request
+     * @return a new window-id candidate
+     */
+    String createWindowId(ExternalContext externalContext);
+}
@@ -42,7 +42,6 @@ import javax.faces.context.ExternalContext;
 import javax.faces.context.FacesContext;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -73,8 +72,18 @@ public class ConversationUtils
      */
     public static Bean<WindowContextManager> resolveConversationManagerBean()
     {
-        BeanManager beanManager = BeanManagerProvider.getInstance().getBeanManager();
+        return resolveConversationManagerBean(BeanManagerProvider.getInstance().getBeanManager());
+    }
 
+    /**
+     * @param beanManager current bean-manager
+     * @return the descriptor of a custom
+     * {@link org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.WindowContextManager}
+     * with the qualifier {@link org.apache.myfaces.extensions.cdi.javaee.jsf.api.qualifier.Jsf} or
+     *         the descriptor of the default implementation provided by this module
+     */
+    public static Bean<WindowContextManager> resolveConversationManagerBean(BeanManager beanManager)
+    {
         Set<?> conversationManagerBeans = beanManager.getBeans(WindowContextManager.class, JSF_QUALIFIER);
 
         if (conversationManagerBeans.isEmpty())
@@ -241,16 +250,7 @@ public class ConversationUtils
      */
     public static boolean cacheWindowId(ExternalContext externalContext, String id, boolean allowUnknownWindowIds)
     {
-        Map<String, Object> sessionMap = externalContext.getSessionMap();
-        Set<String> existingWindowIdSet = (Set)sessionMap.get(EXISTING_WINDOW_ID_SET_KEY);
-
-        if(existingWindowIdSet == null)
-        {
-            existingWindowIdSet = new HashSet<String>();
-            sessionMap.put(EXISTING_WINDOW_ID_SET_KEY, existingWindowIdSet);
-        }
-
-        if(!allowUnknownWindowIds && !existingWindowIdSet.contains(id))
+        if(!allowUnknownWindowIds && !findExistingWindowIdSet(externalContext).contains(id))
         {
             return false;
         }
@@ -333,13 +333,75 @@ public class ConversationUtils
 
     private static WindowContextIdHolderComponent createComponentWithCurrentWindowContextId()
     {
-        Bean<WindowContextManager> conversationManagerBean = resolveConversationManagerBean();
+        Bean<WindowContextManager> conversationManagerBean =
+                WindowContextManagerBeanHolder.getWindowContextManagerBean();
 
         WindowContextManager conversationManager = CodiUtils.getOrCreateScopedInstanceOfBean(conversationManagerBean);
 
         return new WindowContextIdHolderComponent(conversationManager.getCurrentWindowContext().getId());
     }
 
+    /**
+     * @return the markup of a hidden field which transports the id of the current window context -
+     * it's created once per request (a window switch resets the cache)
+     */
+    public static char[] getWindowIdHiddenField()
+    {
+        char[] windowIdHiddenField = RequestCache.getWindowIdHiddenField();
+
+        if(windowIdHiddenField == null)
+        {
+            windowIdHiddenField = createWindowIdHiddenField(
+                    RequestCache.getWindowContextManager().getCurrentWindowContext().getId());
+            RequestCache.setWindowIdHiddenField(windowIdHiddenField);
+        }
+        return windowIdHiddenField;
+    }
+
+    /**
+     * @param windowContextId current window-id
+     * @return the markup of a hidden field which transports the given window-id
+     */
+    public static char[] createWindowIdHiddenField(String windowContextId)
+    {
+        StringBuilder hiddenField = new StringBuilder("<input type=\"hidden\" name=\"");
+        hiddenField.append(WindowContextManager.WINDOW_CONTEXT_ID_PARAMETER_KEY);
+        hiddenField.append("\" value=\"");
+
+        char currentChar;
+        for(int i = 0; i < windowContextId.length(); i++)
+        {
+            currentChar = windowContextId.charAt(i);
+
+            //unknown window-ids might be sent by the client
+            switch (currentChar)
+            {
+                case '&':
+                    hiddenField.append("&amp;");
+                    break;
+                case '<':
+                    hiddenField.append("&lt;");
+                    break;
+                case '>':
+                    hiddenField.append("&gt;");
+                    break;
+                case '"':
+                    hiddenField.append("&quot;");
+                    break;
+                case '\'':
+                    hiddenField.append("&#39;");
+                    break;
+                default:
+                    hiddenField.append(currentChar);
+            }
+        }
+        hiddenField.append("\" />");
+
+        char[] result = new char[hiddenField.length()];
+        hiddenField.getChars(0, hiddenField.length(), result, 0);
+        return result;
+    }
+
     public static void sendRedirect(ExternalContext externalContext,
                                     String url,
                                     WindowHandler windowHandler) throws IOException
@@ -382,13 +444,12 @@ public class ConversationUtils
 
     public static boolean removeExistingWindowId(ExternalContext externalContext, String windowContextId)
     {
-        return getEditableWindowIdSet(externalContext).remove(windowContextId);
+        return findExistingWindowIdSet(externalContext).remove(windowContextId);
     }
 
     public static Set<String> getExistingWindowIdSet(ExternalContext externalContext)
     {
-        Set<String> existingWindowIdSet = getEditableWindowIdSet(externalContext);
-        return Collections.unmodifiableSet(existingWindowIdSet);
+        return Collections.unmodifiableSet(findExistingWindowIdSet(externalContext));
     }
 
     public static void storeCreatedWindowContextId(ExternalContext externalContext, String windowContextId)
@@ -396,19 +457,80 @@ public class ConversationUtils
         getEditableWindowIdSet(externalContext).add(windowContextId);
     }
 
-    private static Set<String> getEditableWindowIdSet(ExternalContext externalContext)
+    /**
+     * @param externalContext current external-context
+     * @param windowContextId id of the created window context
+     * @param windowContextIds ids of the window contexts of the session - if the set is full,
+     * ids without a window context get removed before the oldest id gets evicted
+     */
+    public static void storeCreatedWindowContextId(ExternalContext externalContext,
+                                                   String windowContextId,
+                                                   Collection<String> windowContextIds)
+    {
+        ExistingWindowIdSet existingWindowIdSet = getEditableWindowIdSet(externalContext);
+
+        if(existingWindowIdSet.size() >= existingWindowIdSet.getMaxSize())
+        {
+            existingWindowIdSet.retainAll(windowContextIds);
+        }
+        existingWindowIdSet.add(windowContextId);
+    }
+
+    /**
+     * Creates the set of the known window-ids once per session - the session scoped window context manager
+     * calls it during its initialization. The set is thread-safe and doesn't get replaced after a change.
+     *
+     * @param externalContext current external-context
+     * @param maxWindowIdCount max. number of known window-ids
+     */
+    @SuppressWarnings({"unchecked"})
+    public static void createExistingWindowIdSet(ExternalContext externalContext, int maxWindowIdCount)
     {
         Map<String, Object> sessionMap = externalContext.getSessionMap();
+        Object existingWindowIdSet = sessionMap.get(EXISTING_WINDOW_ID_SET_KEY);
+
+        if(existingWindowIdSet instanceof ExistingWindowIdSet)
+        {
+            return;
+        }
+
+        ExistingWindowIdSet result = new ExistingWindowIdSet(maxWindowIdCount);
+
+        if(existingWindowIdSet instanceof Set)
+        {
+            //migrate the ids of a (not thread-safe) set which was stored by a previous version
+            result.addAll((Set<String>)existingWindowIdSet);
+        }
+
+        sessionMap.put(EXISTING_WINDOW_ID_SET_KEY, result);
+    }
 
-        @SuppressWarnings({"unchecked"})
-        Set<String> existingWindowIdSet = (Set)sessionMap.get(EXISTING_WINDOW_ID_SET_KEY);
+    //lookups and removals don't create the set - e.g. a set which was stored by a previous version is used as it is
+    @SuppressWarnings({"unchecked"})
+    private static Set<String> findExistingWindowIdSet(ExternalContext externalContext)
+    {
+        Object existingWindowIdSet = externalContext.getSessionMap().get(EXISTING_WINDOW_ID_SET_KEY);
 
-        if(existingWindowIdSet == null)
+        if(existingWindowIdSet instanceof Set)
         {
-            existingWindowIdSet = new HashSet<String>();
-            sessionMap.put(EXISTING_WINDOW_ID_SET_KEY, existingWindowIdSet);
+            return (Set<String>)existingWindowIdSet;
         }
-        return existingWindowIdSet;
+        return Collections.emptySet();
+    }
+
+    private static ExistingWindowIdSet getEditableWindowIdSet(ExternalContext externalContext)
+    {
+        Object existingWindowIdSet = externalContext.getSessionMap().get(EXISTING_WINDOW_ID_SET_KEY);
+
+        if(existingWindowIdSet instanceof ExistingWindowIdSet)
+        {
+            return (ExistingWindowIdSet)existingWindowIdSet;
+        }
+
+        //only needed for custom window context managers and for window context managers of previous versions
+        //(a session map of a jsf implementation can't be used as lock - it might be a wrapper per request)
+        createExistingWindowIdSet(externalContext, getJsfAwareWindowContextConfig().getMaxWindowContextCount());
+        return (ExistingWindowIdSet)externalContext.getSessionMap().get(EXISTING_WINDOW_ID_SET_KEY);
     }
 
     public static boolean cleanupInactiveWindowContexts(EditableWindowContextManager windowContextManager)
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe and size-bounded set of the window-ids which are known in a session.
+ * An id gets added if a window context is created and the window context manager removes it as soon as
+ * the window context gets removed or expires. If the max. size is exceeded anyway
+ * (e.g. a quota handler which allows additional window contexts), the oldest id gets evicted.
+ *
+ * @author Gerhard Petracek
+ */
+final class ExistingWindowIdSet extends AbstractSet<String> implements Serializable
+{
+    private static final long serialVersionUID = -2754198621049583271L;
+
+    private final int maxSize;
+
+    //window-id -> sequence number of the creation
+    private final ConcurrentHashMap<String, Long> windowIdMap = new ConcurrentHashMap<String, Long>();
+
+    private final AtomicLong creationCounter = new AtomicLong();
+
+    /**
+     * @param maxSize max. number of window-ids - values < 1 deactivate the limit
+     */
+    ExistingWindowIdSet(int maxSize)
+    {
+        this.maxSize = maxSize > 0 ? maxSize : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean add(String windowId)
+    {
+        if (windowId == null)
+        {
+            return false;
+        }
+
+        boolean added = this.windowIdMap.put(windowId, this.creationCounter.incrementAndGet()) == null;
+
+        while (this.windowIdMap.size() > this.maxSize)
+        {
+            evictOldestWindowId();
+        }
+        return added;
+    }
+
+    @Override
+    public boolean contains(Object windowId)
+    {
+        return windowId != null && this.windowIdMap.containsKey(windowId);
+    }
+
+    @Override
+    public boolean remove(Object windowId)
+    {
+        return windowId != null && this.windowIdMap.remove(windowId) != null;
+    }
+
+    @Override
+    public Iterator<String> iterator()
+    {
+        return this.windowIdMap.keySet().iterator();
+    }
+
+    @Override
+    public int size()
+    {
+        return this.windowIdMap.size();
+    }
+
+    int getMaxSize()
+    {
+        return this.maxSize;
+    }
+
+    //the set is small (max. window context count) and it's only needed if the max. size is exceeded
+    private void evictOldestWindowId()
+    {
+        Map.Entry<String, Long> oldestEntry = null;
+
+        for (Map.Entry<String, Long> entry : this.windowIdMap.entrySet())
+        {
+            if (oldestEntry == null || entry.getValue() < oldestEntry.getValue())
+            {
+                oldestEntry = entry;
+            }
+        }
+
+        if (oldestEntry != null)
+        {
+            //a parallel request might have removed or re-added the id in the meantime
+            this.windowIdMap.remove(oldestEntry.getKey(), oldestEntry.getValue());
+        }
+    }
+}
@@ -26,121 +26,177 @@ import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.
 
 import javax.enterprise.inject.spi.Bean;
 import java.util.Map;
-import java.util.HashMap;
 
 /**
+ * Caches values of the current request in one {@link RequestState} per thread.
+ * A reset just invalidates the cached values - the state gets removed at the end of the request.
+ *
  * @author Gerhard Petracek
  */
 public class RequestCache
 {
-    private static ThreadLocal<WindowContext> windowContextCache = new ThreadLocal<WindowContext>();
-
-    private static ThreadLocal<WindowContextManager> windowContextManagerCache
-            = new ThreadLocal<WindowContextManager>();
-
-    private static ThreadLocal<Bean<WindowContextManager>> windowContextManagerBeanCache
-            = new ThreadLocal<Bean<WindowContextManager>>();
-
-    private static ThreadLocal<Map<ConversationKey, EditableConversation>> conversationCache
-            = new ThreadLocal<Map<ConversationKey, EditableConversation>>();
+    private static ThreadLocal<RequestState> requestStateCache = new ThreadLocal<RequestState>();
 
     public static void resetCache()
     {
-        windowContextManagerCache.set(null);
-        windowContextManagerCache.remove();
+        RequestState requestState = requestStateCache.get();
 
-        windowContextManagerBeanCache.set(null);
-        windowContextManagerBeanCache.remove();
-
-        windowContextCache.set(null);
-        windowContextCache.remove();
+        if(requestState != null)
+        {
+            requestState.reset();
+        }
+    }
 
-        resetConversationCache();
+    /**
+     * removes the cached values of the current thread - has to be called at the end of a request
+     */
+    public static void releaseCache()
+    {
+        requestStateCache.remove();
     }
 
     public static void resetConversationCache()
     {
-        conversationCache.set(null);
-        conversationCache.remove();
+        RequestState requestState = requestStateCache.get();
+
+        if(requestState != null)
+        {
+            requestState.resetConversations();
+        }
     }
 
-    public static WindowContextManager getWindowContextManager()
+    public static void resetBeanInstanceCache()
     {
-        WindowContextManager windowContextManager = windowContextManagerCache.get();
+        RequestState requestState = requestStateCache.get();
 
-        if(windowContextManager == null)
+        if(requestState != null)
         {
-            return resolveWindowContextManager(resolveWindowContextManagerBean());
+            requestState.resetBeanInstances();
         }
+    }
+
+    public static WindowContextManager getWindowContextManager()
+    {
+        RequestState requestState = getRequestState();
+        WindowContextManager windowContextManager = requestState.getWindowContextManager();
 
-        /* TODO remove it after tests
         if(windowContextManager == null)
         {
-            windowContextManager = CodiUtils.getOrCreateScopedInstanceOfBeanByName(
-                WindowContextManager.WINDOW_CONTEXT_MANAGER_BEAN_NAME, WindowContextManager.class);
-
-            windowContextManagerCache.set(windowContextManager);
+            windowContextManager = CodiUtils.getOrCreateScopedInstanceOfBean(
+                    WindowContextManagerBeanHolder.getWindowContextManagerBean());
+            requestState.setWindowContextManager(windowContextManager);
         }
-        */
 
         return windowContextManager;
     }
 
-    private static WindowContextManager resolveWindowContextManager(Bean<WindowContextManager> windowContextManagerBean)
+    public static WindowContext getCurrentWindowContext()
     {
-        WindowContextManager windowContextManager = windowContextManagerCache.get();
+        return getRequestState().getCurrentWindowContext();
+    }
 
-        if(windowContextManager == null)
-        {
-            windowContextManager = CodiUtils.getOrCreateScopedInstanceOfBean(windowContextManagerBean);
-            windowContextManagerCache.set(windowContextManager);
-        }
+    /**
+     * A state which is left over by a previous request of a pooled thread doesn't count.
+     *
+     * @return true if the current thread executes a task with the propagated state of a request
+     * (see {@link RequestStateCarrier}) - doesn't create a new state
+     */
+    public static boolean isRequestStatePropagated()
+    {
+        RequestState requestState = requestStateCache.get();
+        return requestState != null && requestState.isPropagated() && requestState.getCurrentWindowContext() != null;
+    }
 
-        return windowContextManager;
+    public static void setCurrentWindowContext(WindowContext windowContext)
+    {
+        getRequestState().setCurrentWindowContext(windowContext);
     }
 
-    private static Bean<WindowContextManager> resolveWindowContextManagerBean()
+    /**
+     * @return the cached url parameter for the window-id of the current window context or null
+     */
+    public static String getWindowIdUrlParameter()
     {
-        Bean<WindowContextManager> windowContextManagerBean = windowContextManagerBeanCache.get();
+        return getRequestState().getWindowIdUrlParameter();
+    }
 
-        if(windowContextManagerBean == null)
-        {
-            windowContextManagerBean = ConversationUtils.resolveConversationManagerBean();
-            windowContextManagerBeanCache.set(windowContextManagerBean);
-        }
+    public static void setWindowIdUrlParameter(String windowIdUrlParameter)
+    {
+        getRequestState().setWindowIdUrlParameter(windowIdUrlParameter);
+    }
 
-        return windowContextManagerBean;
+    /**
+     * @return the cached hidden field for the window-id of the current window context or null
+     */
+    public static char[] getWindowIdHiddenField()
+    {
+        return getRequestState().getWindowIdHiddenField();
     }
 
-    public static WindowContext getCurrentWindowContext()
+    public static void setWindowIdHiddenField(char[] windowIdHiddenField)
     {
-        return windowContextCache.get();
+        getRequestState().setWindowIdHiddenField(windowIdHiddenField);
     }
 
-    public static void setCurrentWindowContext(WindowContext windowContext)
+    /**
+     * @return an empty builder which is reused within the current request
+     */
+    public static StringBuilder getUrlBuilder()
     {
-        windowContextCache.set(windowContext);
+        return getRequestState().getUrlBuilder();
     }
 
     public static EditableConversation getConversation(ConversationKey conversationKey)
     {
-        return getConversationCache().get(conversationKey);
+        return getRequestState().getConversations().get(conversationKey);
     }
 
     public static void setConversation(ConversationKey conversationKey, EditableConversation conversation)
     {
-        getConversationCache().put(conversationKey, conversation);
+        getRequestState().getConversations().put(conversationKey, conversation);
+    }
+
+    public static Map<Bean<?>, Object> getBeanInstanceCache()
+    {
+        return getRequestState().getBeanInstances();
+    }
+
+    /**
+     * @return a copy of the state of the current thread
+     */
+    static RequestState copyRequestState()
+    {
+        return new RequestState(getRequestState());
+    }
+
+    /**
+     * @param requestState the new state of the current thread - null removes the state
+     * @return the previous state of the current thread
+     */
+    static RequestState replaceRequestState(RequestState requestState)
+    {
+        RequestState previousRequestState = requestStateCache.get();
+
+        if(requestState == null)
+        {
+            requestStateCache.remove();
+        }
+        else
+        {
+            requestStateCache.set(requestState);
+        }
+        return previousRequestState;
     }
 
-    private static Map<ConversationKey, EditableConversation> getConversationCache()
+    private static RequestState getRequestState()
     {
-        Map<ConversationKey, EditableConversation> conversationMap = conversationCache.get();
+        RequestState requestState = requestStateCache.get();
 
-        if(conversationMap == null)
+        if(requestState == null)
         {
-            conversationMap = new HashMap<ConversationKey, EditableConversation>();
-            conversationCache.set(conversationMap);
+            requestState = new RequestState();
+            requestStateCache.set(requestState);
         }
-        return conversationMap;
+        return requestState;
     }
 }
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util;
+
+import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.WindowContext;
+import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.WindowContextManager;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.ConversationKey;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.EditableConversation;
+
+import javax.enterprise.inject.spi.Bean;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Values which are cached for the current request (see {@link RequestCache}).
+ * The maps get invalidated via generation counters - they are just cleared before they get used again.
+ *
+ * @author Gerhard Petracek
+ */
+final class RequestState
+{
+    private WindowContextManager windowContextManager;
+
+    private WindowContext currentWindowContext;
+
+    //e.g. windowId=abc - it's bound to the current window context
+    private String windowIdUrlParameter;
+
+    //markup of the hidden field which gets streamed into every form - it's bound to the current window context
+    private char[] windowIdHiddenField;
+
+    //reused for encoding urls
+    private final StringBuilder urlBuilder = new StringBuilder();
+
+    private final Map<ConversationKey, EditableConversation> conversations =
+            new HashMap<ConversationKey, EditableConversation>();
+
+    //bean descriptors don't have to implement equals/hashCode
+    private final Map<Bean<?>, Object> beanInstances = new IdentityHashMap<Bean<?>, Object>();
+
+    private int conversationGeneration;
+
+    private int conversationMapGeneration;
+
+    private int beanInstanceGeneration;
+
+    private int beanInstanceMapGeneration;
+
+    //true for a state which was handed over to a different thread explicitly (see RequestStateCarrier)
+    private final boolean propagated;
+
+    RequestState()
+    {
+        this.propagated = false;
+    }
+
+    /**
+     * @param requestState state which gets copied - the copy doesn't share the maps with the original state
+     */
+    RequestState(RequestState requestState)
+    {
+        this.propagated = true;
+        this.windowContextManager = requestState.windowContextManager;
+        this.currentWindowContext = requestState.currentWindowContext;
+        this.windowIdUrlParameter = requestState.windowIdUrlParameter;
+        this.windowIdHiddenField = requestState.windowIdHiddenField;
+
+        this.conversations.putAll(requestState.getConversations());
+        this.beanInstances.putAll(requestState.getBeanInstances());
+    }
+
+    void reset()
+    {
+        this.windowContextManager = null;
+        this.currentWindowContext = null;
+        this.windowIdUrlParameter = null;
+        this.windowIdHiddenField = null;
+
+        resetConversations();
+    }
+
+    void resetConversations()
+    {
+        this.conversationGeneration++;
+
+        resetBeanInstances();
+    }
+
+    void resetBeanInstances()
+    {
+        this.beanInstanceGeneration++;
+    }
+
+    boolean isPropagated()
+    {
+        return this.propagated;
+    }
+
+    WindowContextManager getWindowContextManager()
+    {
+        return this.windowContextManager;
+    }
+
+    void setWindowContextManager(WindowContextManager windowContextManager)
+    {
+        this.windowContextManager = windowContextManager;
+    }
+
+    WindowContext getCurrentWindowContext()
+    {
+        return this.currentWindowContext;
+    }
+
+    void setCurrentWindowContext(WindowContext currentWindowContext)
+    {
+        this.currentWindowContext = currentWindowContext;
+    }
+
+    String getWindowIdUrlParameter()
+    {
+        return this.windowIdUrlParameter;
+    }
+
+    void setWindowIdUrlParameter(String windowIdUrlParameter)
+    {
+        this.windowIdUrlParameter = windowIdUrlParameter;
+    }
+
+    char[] getWindowIdHiddenField()
+    {
+        return this.windowIdHiddenField;
+    }
+
+    void setWindowIdHiddenField(char[] windowIdHiddenField)
+    {
+        this.windowIdHiddenField = windowIdHiddenField;
+    }
+
+    StringBuilder getUrlBuilder()
+    {
+        this.urlBuilder.setLength(0);
+        return this.urlBuilder;
+    }
+
+    Map<ConversationKey, EditableConversation> getConversations()
+    {
+        if (this.conversationMapGeneration != this.conversationGeneration)
+        {
+            this.conversations.clear();
+            this.conversationMapGeneration = this.conversationGeneration;
+        }
+        return this.conversations;
+    }
+
+    Map<Bean<?>, Object> getBeanInstances()
+    {
+        if (this.beanInstanceMapGeneration != this.beanInstanceGeneration)
+        {
+            this.beanInstances.clear();
+            this.beanInstanceMapGeneration = this.beanInstanceGeneration;
+        }
+        return this.beanInstances;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util;
+
+/**
+ * Carries the cached state of a request (the current window context, the window context manager and the
+ * resolved conversations and bean instances) to other threads - e.g. for async processing.
+ * Every execution works with an own copy of the captured state, so invalidations aren't shared between threads.
+ * The beans themselves are shared - the application has to take care of concurrent access.
+ * Without a FacesContext only beans of the captured window context can be resolved. Beans of view access scoped
+ * conversations have to be resolved by the request before the state gets captured.
+ *
+ * @author Gerhard Petracek
+ */
+public final class RequestStateCarrier
+{
+    private final RequestState requestState;
+
+    private RequestStateCarrier(RequestState requestState)
+    {
+        this.requestState = requestState;
+    }
+
+    /**
+     * Captures the state of the current request. It has to be called by a thread which processes a JSF request.
+     *
+     * @return a carrier for the state of the current request
+     */
+    public static RequestStateCarrier capture()
+    {
+        //resolve the current window context eagerly - it can't be resolved without a request
+        RequestCache.getWindowContextManager().getCurrentWindowContext();
+
+        return new RequestStateCarrier(RequestCache.copyRequestState());
+    }
+
+    /**
+     * Executes the given task with the captured state and restores the previous state of the current thread
+     * afterwards.
+     *
+     * @param runnable task which should be executed with the captured state
+     */
+    public void execute(Runnable runnable)
+    {
+        RequestState previousRequestState = RequestCache.replaceRequestState(new RequestState(this.requestState));
+
+        try
+        {
+            runnable.run();
+        }
+        finally
+        {
+            RequestCache.replaceRequestState(previousRequestState);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util;
+
+import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
+import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.WindowContextManager;
+
+import javax.enterprise.inject.spi.Bean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the descriptor of the current {@link WindowContextManager} per application (class-loader).
+ * It gets resolved at deployment time - just the contextual instance has to be resolved per request.
+ *
+ * @author Gerhard Petracek
+ */
+public class WindowContextManagerBeanHolder
+{
+    private static Map<ClassLoader, Bean<WindowContextManager>> windowContextManagerBeans =
+            new ConcurrentHashMap<ClassLoader, Bean<WindowContextManager>>();
+
+    public static Bean<WindowContextManager> getWindowContextManagerBean()
+    {
+        ClassLoader classLoader = ClassUtils.getClassLoader(null);
+        Bean<WindowContextManager> windowContextManagerBean = windowContextManagerBeans.get(classLoader);
+
+        if(windowContextManagerBean == null)
+        {
+            //fallback if the bean wasn't registered during the deployment
+            windowContextManagerBean = ConversationUtils.resolveConversationManagerBean();
+            windowContextManagerBeans.put(classLoader, windowContextManagerBean);
+        }
+        return windowContextManagerBean;
+    }
+
+    public static void setWindowContextManagerBean(Bean<WindowContextManager> windowContextManagerBean)
+    {
+        windowContextManagerBeans.put(ClassUtils.getClassLoader(null), windowContextManagerBean);
+    }
+
+    public static void reset()
+    {
+        windowContextManagerBeans.remove(ClassUtils.getClassLoader(null));
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The callbacks of a page bean for one before- or after-phase.
+ *
+ * @author Gerhard Petracek
+ */
+final class PageBeanCallbacks
+{
+    private final PageBeanDefinitionEntry pageBeanDefinitionEntry;
+
+    private final List<PhasesLifecycleCallback> callbacks;
+
+    PageBeanCallbacks(PageBeanDefinitionEntry pageBeanDefinitionEntry, List<PhasesLifecycleCallback> callbacks)
+    {
+        this.pageBeanDefinitionEntry = pageBeanDefinitionEntry;
+        this.callbacks = Collections.unmodifiableList(callbacks);
+    }
+
+    PageBeanDefinitionEntry getPageBeanDefinitionEntry()
+    {
+        return pageBeanDefinitionEntry;
+    }
+
+    List<PhasesLifecycleCallback> getCallbacks()
+    {
+        return callbacks;
+    }
+}
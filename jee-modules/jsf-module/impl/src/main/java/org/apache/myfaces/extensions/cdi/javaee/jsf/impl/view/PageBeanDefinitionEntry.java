@@ -18,10 +18,12 @@
  */
 package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view;
 
+import org.apache.myfaces.extensions.cdi.core.api.manager.BeanManagerProvider;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.BeforePhase;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.AfterPhase;
 import static org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ExceptionUtils.unsupportedPhasesLifecycleCallback;
 
+import javax.enterprise.inject.spi.Bean;
 import javax.faces.event.PhaseId;
 import static javax.faces.event.PhaseId.*;
 import java.lang.reflect.Method;
@@ -29,6 +31,8 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.Collections;
 import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
 
 /**
  * @author Gerhard Petracek
@@ -41,6 +45,9 @@ class PageBeanDefinitionEntry
 
     private final Map<PhaseId, PhasesLifecycleCallbackEntry> phasesLifecycleCallbacks;
 
+    //resolved lazily - the beans aren't available during the bootstrapping of the view definitions
+    private volatile Bean<?> bean;
+
     PageBeanDefinitionEntry(String beanName, Class beanClass)
     {
         this.beanName = beanName;
@@ -58,6 +65,26 @@ class PageBeanDefinitionEntry
         return beanClass;
     }
 
+    Bean<?> getBean()
+    {
+        Bean<?> result = this.bean;
+
+        if(result == null)
+        {
+            Set<Bean<?>> foundBeans = BeanManagerProvider.getInstance().getBeanManager().getBeans(this.beanName);
+
+            //TODO provide a detailed error message in case of a missing bean
+            if(foundBeans.size() != 1)
+            {
+                throw new IllegalStateException(foundBeans.size() + " beans found with name: " + this.beanName);
+            }
+
+            result = foundBeans.iterator().next();
+            this.bean = result;
+        }
+        return result;
+    }
+
     PhasesLifecycleCallbackEntry getPhasesLifecycleCallback(PhaseId phaseId)
     {
         return phasesLifecycleCallbacks.get(phaseId);
@@ -96,26 +123,20 @@ class PageBeanDefinitionEntry
             PhasesLifecycleCallbackEntryHelper beforeCallbackEntryHelper,
             PhasesLifecycleCallbackEntryHelper afterCallbackEntryHelper)
     {
-        Map<PhaseId, PhasesLifecycleCallbackEntry> result = new HashMap<PhaseId, PhasesLifecycleCallbackEntry>(6);
-
-        result.put(RESTORE_VIEW,
-                createCallbackEntry(RESTORE_VIEW, beforeCallbackEntryHelper, afterCallbackEntryHelper));
-
-        result.put(APPLY_REQUEST_VALUES,
-                createCallbackEntry(APPLY_REQUEST_VALUES, beforeCallbackEntryHelper, afterCallbackEntryHelper));
-
-        result.put(PROCESS_VALIDATIONS,
-                createCallbackEntry(PROCESS_VALIDATIONS, beforeCallbackEntryHelper, afterCallbackEntryHelper));
-
-        result.put(UPDATE_MODEL_VALUES,
-                createCallbackEntry(UPDATE_MODEL_VALUES, beforeCallbackEntryHelper, afterCallbackEntryHelper));
+        Map<PhaseId, PhasesLifecycleCallbackEntry> result = new HashMap<PhaseId, PhasesLifecycleCallbackEntry>();
 
-        result.put(INVOKE_APPLICATION,
-                createCallbackEntry(INVOKE_APPLICATION, beforeCallbackEntryHelper, afterCallbackEntryHelper));
-
-        result.put(RENDER_RESPONSE,
-                createCallbackEntry(RENDER_RESPONSE, beforeCallbackEntryHelper, afterCallbackEntryHelper));
+        PhasesLifecycleCallbackEntry callbackEntry;
+        for(PhaseId phaseId : new PhaseId[] {RESTORE_VIEW, APPLY_REQUEST_VALUES, PROCESS_VALIDATIONS,
+                UPDATE_MODEL_VALUES, INVOKE_APPLICATION, RENDER_RESPONSE})
+        {
+            callbackEntry = createCallbackEntry(phaseId, beforeCallbackEntryHelper, afterCallbackEntryHelper);
 
+            //phases without callbacks aren't stored
+            if(!callbackEntry.getBeforePhaseCallbacks().isEmpty() || !callbackEntry.getAfterPhaseCallbacks().isEmpty())
+            {
+                result.put(phaseId, callbackEntry);
+            }
+        }
         return result;
     }
 
@@ -133,6 +154,23 @@ class PageBeanDefinitionEntry
             throw unsupportedPhasesLifecycleCallback();
         }
 
-        return new PhasesLifecycleCallbackEntry(beforePhaseCallbacks, afterPhaseCallbacks);
+        return new PhasesLifecycleCallbackEntry(
+                createCallbacks(beforePhaseCallbacks), createCallbacks(afterPhaseCallbacks));
+    }
+
+    private List<PhasesLifecycleCallback> createCallbacks(List<Method> callbackMethods)
+    {
+        if(callbackMethods == null)
+        {
+            return null;
+        }
+
+        List<PhasesLifecycleCallback> result = new ArrayList<PhasesLifecycleCallback>(callbackMethods.size());
+
+        for(Method callbackMethod : callbackMethods)
+        {
+            result.add(new PhasesLifecycleCallback(this.beanClass, callbackMethod));
+        }
+        return result;
     }
 }
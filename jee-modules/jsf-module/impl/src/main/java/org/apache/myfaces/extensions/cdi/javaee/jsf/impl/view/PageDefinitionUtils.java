@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.view.definition.JsfViewExtension;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.view.definition.NavigationMode;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.view.definition.Page;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the view-id and the navigation mode of a page definition.
+ * It's used by the {@link ViewDefinitionExtension} as well as by the ViewConfigIndexProcessor
+ * (myfaces-extcdi-jsf12-module-view-config-index).
+ *
+ * @author Gerhard Petracek
+ */
+final class PageDefinitionUtils
+{
+    static final String VIEW_CONFIG_INDEX = "META-INF/extcdi/view-config.properties";
+
+    static final String VIEW_ID_KEY_SUFFIX = ".viewId";
+
+    static final String NAVIGATION_MODE_KEY_SUFFIX = ".navigation";
+
+    private PageDefinitionUtils()
+    {
+    }
+
+    /**
+     * @param className binary name of the page definition
+     * @param simpleClassNames simple names of the page definition and all super-classes
+     * @param pageAnnotations {@link Page} of the page definition and all super-classes (or null)
+     * @return the view-id of the page definition
+     */
+    static String createViewId(String className, List<String> simpleClassNames, List<Page> pageAnnotations)
+    {
+        String rootPath = "/";
+        String basePath = rootPath;
+        String currentBasePath;
+        Map<String, String> simpleClassNameToPathMapping = new HashMap<String, String>();
+
+        String defaultPageName = "";
+        String pageName = defaultPageName;
+
+        String defaultExtension = JsfViewExtension.XHTML;
+        String extension = defaultExtension;
+
+        Page pageAnnotation;
+        for(int i = 0; i < pageAnnotations.size(); i++)
+        {
+            pageAnnotation = pageAnnotations.get(i);
+
+            if(pageAnnotation == null)
+            {
+                continue;
+            }
+
+            if(!pageAnnotation.extension().equals(defaultExtension))
+            {
+                extension = pageAnnotation.extension();
+            }
+
+            if(!pageAnnotation.basePath().equals(rootPath))
+            {
+                currentBasePath = pageAnnotation.basePath();
+
+                if(!".".equals(currentBasePath))
+                {
+                    simpleClassNameToPathMapping.put(simpleClassNames.get(i), currentBasePath);
+                }
+
+                if(rootPath.equals(basePath))
+                {
+                    basePath = currentBasePath;
+                }
+            }
+
+            if(!pageAnnotation.name().equals(defaultPageName))
+            {
+                pageName = pageAnnotation.name();
+            }
+        }
+
+        StringBuilder viewId = new StringBuilder(basePath);
+        if(pageName.equals(""))
+        {
+            //MyClass$MyInnerClass will be converted to /MyClass/MyInnerClass
+            if(className.contains("$") && ".".equals(basePath))
+            {
+                className = className.substring(className.lastIndexOf(".") + 1);
+                className = convertToPathSyntax(className, simpleClassNameToPathMapping);
+            }
+            else if(className.contains("$"))
+            {
+                className = className.substring(className.lastIndexOf("$") + 1);
+            }
+            else
+            {
+                className = className.substring(className.lastIndexOf(".") + 1);
+            }
+            className = className.substring(0, 1).toLowerCase() + className.substring(1);
+            viewId.append(className);
+        }
+        else
+        {
+            viewId.append(pageName);
+        }
+        viewId.append(".");
+        viewId.append(extension);
+        String result = viewId.toString();
+
+        if(result.startsWith("."))
+        {
+            if(result.startsWith("./"))
+            {
+                result = result.substring(1);
+            }
+            else
+            {
+                result = rootPath + result.substring(1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param pageAnnotations {@link Page} of the page definition and all super-classes (or null)
+     * @return the navigation mode of the page definition
+     */
+    static NavigationMode getNavigationMode(List<Page> pageAnnotations)
+    {
+        NavigationMode defaultNavigationMode = NavigationMode.FORWARD;
+        NavigationMode navigationMode = defaultNavigationMode;
+
+        for(Page pageAnnotation : pageAnnotations)
+        {
+            if(pageAnnotation != null && !pageAnnotation.navigation().equals(defaultNavigationMode))
+            {
+                navigationMode = pageAnnotation.navigation();
+            }
+        }
+        return navigationMode;
+    }
+
+    private static String convertToPathSyntax(String className, Map<String, String> simpleClassNameToPathMapping)
+    {
+        String[] parts = className.split("\\$");
+        StringBuilder path = new StringBuilder();
+
+        for(String part : parts)
+        {
+            if(simpleClassNameToPathMapping.containsKey(part))
+            {
+                path.append(simpleClassNameToPathMapping.get(part));
+            }
+            else
+            {
+                path.append(part.substring(0, 1).toLowerCase());
+                path.append(part.substring(1));
+            }
+            path.append("/");
+        }
+        String result = path.toString();
+        return result.substring(0, result.length() - 1);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view;
+
+import static org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ExceptionUtils.invalidPhasesCallbackMethod;
+
+import javax.faces.event.PhaseEvent;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Phases-lifecycle callback of a page bean.
+ * The signature gets validated once - afterwards the method is invoked without further checks.
+ *
+ * @author Gerhard Petracek
+ */
+final class PhasesLifecycleCallback
+{
+    private final Method method;
+
+    private final boolean phaseEventParameter;
+
+    PhasesLifecycleCallback(Class beanClass, Method method)
+    {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+
+        if(parameterTypes.length == 0)
+        {
+            this.phaseEventParameter = false;
+        }
+        else if(parameterTypes.length == 1 && PhaseEvent.class.isAssignableFrom(parameterTypes[0]))
+        {
+            this.phaseEventParameter = true;
+        }
+        else
+        {
+            throw invalidPhasesCallbackMethod(beanClass, method);
+        }
+
+        method.setAccessible(true);
+        this.method = method;
+    }
+
+    void invoke(Object bean, PhaseEvent phaseEvent) throws InvocationTargetException, IllegalAccessException
+    {
+        if(this.phaseEventParameter)
+        {
+            this.method.invoke(bean, phaseEvent);
+        }
+        else
+        {
+            this.method.invoke(bean);
+        }
+    }
+}
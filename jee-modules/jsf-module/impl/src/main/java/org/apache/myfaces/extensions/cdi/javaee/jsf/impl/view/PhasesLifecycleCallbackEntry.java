@@ -18,7 +18,6 @@
  */
 package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view;
 
-import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Collections;
 
@@ -27,11 +26,12 @@ import java.util.Collections;
  */
 class PhasesLifecycleCallbackEntry
 {
-    private final List<Method> beforePhaseCallbacks;
+    private final List<PhasesLifecycleCallback> beforePhaseCallbacks;
 
-    private final List<Method> afterPhaseCallbacks;
+    private final List<PhasesLifecycleCallback> afterPhaseCallbacks;
 
-    PhasesLifecycleCallbackEntry(List<Method> beforePhaseCallbacks, List<Method> afterPhaseCallbacks)
+    PhasesLifecycleCallbackEntry(List<PhasesLifecycleCallback> beforePhaseCallbacks,
+                                 List<PhasesLifecycleCallback> afterPhaseCallbacks)
     {
         if(beforePhaseCallbacks != null)
         {
@@ -52,12 +52,12 @@ class PhasesLifecycleCallbackEntry
         }
     }
 
-    List<Method> getBeforePhaseCallbacks()
+    List<PhasesLifecycleCallback> getBeforePhaseCallbacks()
     {
         return beforePhaseCallbacks;
     }
 
-    List<Method> getAfterPhaseCallbacks()
+    List<PhasesLifecycleCallback> getAfterPhaseCallbacks()
     {
         return afterPhaseCallbacks;
     }
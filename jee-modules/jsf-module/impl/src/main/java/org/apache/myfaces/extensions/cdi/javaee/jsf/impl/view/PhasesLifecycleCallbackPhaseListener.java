@@ -19,14 +19,12 @@
 package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view;
 
 import org.apache.myfaces.extensions.cdi.core.impl.utils.CodiUtils;
-import static org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ExceptionUtils.invalidPhasesCallbackMethod;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.JsfPhaseListener;
 
 import javax.faces.event.PhaseEvent;
 import javax.faces.event.PhaseListener;
 import javax.faces.component.UIViewRoot;
 import java.util.List;
-import java.lang.reflect.Method;
 import java.lang.reflect.InvocationTargetException;
 
 /**
@@ -92,63 +90,25 @@ public final class PhasesLifecycleCallbackPhaseListener implements PhaseListener
             return;
         }
 
-        List<PageBeanDefinitionEntry> beanEntries = viewDefinitionEntry.getBeanDefinitions();
+        PageBeanCallbacks[] pageBeanCallbacks =
+                viewDefinitionEntry.getPhasesLifecycleCallbacks(phaseEvent.getPhaseId(), beforePhase);
 
         Object bean;
-        PhasesLifecycleCallbackEntry phasesLifecycleCallbackEntry;
-        List<Method> lifecycleCallbacks;
-
-        for(PageBeanDefinitionEntry beanEntry : beanEntries)
+        for(PageBeanCallbacks currentPageBeanCallbacks : pageBeanCallbacks)
         {
-            phasesLifecycleCallbackEntry = beanEntry.getPhasesLifecycleCallback(phaseEvent.getPhaseId());
-
-            if(phasesLifecycleCallbackEntry == null)
-            {
-                continue;
-            }
-
-
-            if(beforePhase)
-            {
-                lifecycleCallbacks = phasesLifecycleCallbackEntry.getBeforePhaseCallbacks();
-            }
-            else
-            {
-                lifecycleCallbacks = phasesLifecycleCallbackEntry.getAfterPhaseCallbacks();
-            }
-
-            if(lifecycleCallbacks.isEmpty())
-            {
-                continue;
-            }
-
-            //TODO provide a detailed error message in case of a missing bean
-            bean = CodiUtils.getOrCreateScopedInstanceOfBeanByName(beanEntry.getBeanName(), Object.class);
-            invokePhasesLifecycleCallbacks(bean, lifecycleCallbacks, phaseEvent);
+            bean = CodiUtils.getOrCreateScopedInstanceOfBean(
+                    currentPageBeanCallbacks.getPageBeanDefinitionEntry().getBean());
+            invokePhasesLifecycleCallbacks(bean, currentPageBeanCallbacks.getCallbacks(), phaseEvent);
         }
     }
 
-    private void invokePhasesLifecycleCallbacks(Object bean, List<Method> lifecycleCallbacks, PhaseEvent phaseEvent)
+    private void invokePhasesLifecycleCallbacks(
+            Object bean, List<PhasesLifecycleCallback> lifecycleCallbacks, PhaseEvent phaseEvent)
             throws InvocationTargetException, IllegalAccessException
     {
-        Class<?>[] parameterTypes;
-        for(Method currentMethod : lifecycleCallbacks)
+        for(PhasesLifecycleCallback lifecycleCallback : lifecycleCallbacks)
         {
-            currentMethod.setAccessible(true);
-
-            parameterTypes = currentMethod.getParameterTypes();
-            if(parameterTypes.length == 0)
-            {
-                currentMethod.invoke(bean);
-            }
-            else if(parameterTypes.length == 1 && PhaseEvent.class.isAssignableFrom(parameterTypes[0]))
-            {
-                currentMethod.invoke(bean, phaseEvent);
-            }
-            else
-            {
-                throw invalidPhasesCallbackMethod(bean.getClass(), currentMethod);
-            }
+            lifecycleCallback.invoke(bean, phaseEvent);
         }
     }
 }
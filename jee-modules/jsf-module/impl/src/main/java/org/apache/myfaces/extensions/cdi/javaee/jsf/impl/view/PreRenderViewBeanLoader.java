@@ -47,7 +47,7 @@ final class PreRenderViewBeanLoader
         for(PageBeanDefinitionEntry beanEntry : beanEntries)
         {
             //resolve bean to trigger @PostConstruct if it isn't scoped
-            CodiUtils.getOrCreateScopedInstanceOfBeanByName(beanEntry.getBeanName(), Object.class);
+            CodiUtils.getOrCreateScopedInstanceOfBean(beanEntry.getBean());
         }
     }
 }
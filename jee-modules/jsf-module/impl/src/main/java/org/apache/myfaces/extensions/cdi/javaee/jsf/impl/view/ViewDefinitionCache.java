@@ -18,43 +18,83 @@
  */
 package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view;
 
+import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
 import org.apache.myfaces.extensions.cdi.core.api.view.definition.ViewDefinition;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Immutable snapshot of all view definitions of an application.
+ * It gets published by the {@link ViewDefinitionExtension} once all types are processed.
+ * We have to maintain this separately for each ContextClassLoader since it
+ * is possible that multiple WebApps start up in parallel.
+ *
  * @author Gerhard Petracek
  */
 public class ViewDefinitionCache
 {
-    //we don't need a ConcurrentHashMap - write access is only allowed during the startup (by one thread)
-    private static Map<String, ViewDefinitionEntry> viewIdToViewDefinitionEntryMapping
-            = new HashMap<String, ViewDefinitionEntry>();
+    private static Map<ClassLoader, ViewDefinitionCache> viewDefinitionCaches =
+            new ConcurrentHashMap<ClassLoader, ViewDefinitionCache>();
+
+    private final Map<String, ViewDefinitionEntry> viewIdToViewDefinitionEntryMapping;
 
-    private static Map<Class<? extends ViewDefinition>, ViewDefinitionEntry> viewDefinitionToViewDefinitionEntryMapping
-            = new HashMap<Class<? extends ViewDefinition>, ViewDefinitionEntry>();
+    private final Map<Class<? extends ViewDefinition>, ViewDefinitionEntry> viewDefinitionToViewDefinitionEntryMapping;
 
-    static void addViewDefinition(String viewId, ViewDefinitionEntry viewDefinitionEntry)
+    private ViewDefinitionCache(Map<String, ViewDefinitionEntry> viewIdToViewDefinitionEntryMapping)
     {
-        if(viewIdToViewDefinitionEntryMapping.containsKey(viewId))
+        Map<Class<? extends ViewDefinition>, ViewDefinitionEntry> viewDefinitionToViewDefinitionEntryMapping =
+                new HashMap<Class<? extends ViewDefinition>, ViewDefinitionEntry>();
+
+        for(ViewDefinitionEntry viewDefinitionEntry : viewIdToViewDefinitionEntryMapping.values())
         {
-            throw new IllegalArgumentException(viewId + " is already mapped to "
-                    + viewId + " -> a further view definition (" +
-                    viewDefinitionEntry.getViewDefinitionClass().getName() + ") is invalid");
+            viewDefinitionToViewDefinitionEntryMapping
+                    .put(viewDefinitionEntry.getViewDefinitionClass(), viewDefinitionEntry);
         }
-        viewIdToViewDefinitionEntryMapping.put(viewId, viewDefinitionEntry);
-        viewDefinitionToViewDefinitionEntryMapping
-                .put(viewDefinitionEntry.getViewDefinitionClass(), viewDefinitionEntry);
+
+        this.viewIdToViewDefinitionEntryMapping = Collections.unmodifiableMap(
+                new HashMap<String, ViewDefinitionEntry>(viewIdToViewDefinitionEntryMapping));
+        this.viewDefinitionToViewDefinitionEntryMapping =
+                Collections.unmodifiableMap(viewDefinitionToViewDefinitionEntryMapping);
+    }
+
+    static void publish(Map<String, ViewDefinitionEntry> viewIdToViewDefinitionEntryMapping)
+    {
+        viewDefinitionCaches.put(ClassUtils.getClassLoader(null),
+                new ViewDefinitionCache(viewIdToViewDefinitionEntryMapping));
+    }
+
+    static void reset()
+    {
+        viewDefinitionCaches.remove(ClassUtils.getClassLoader(null));
     }
 
     public static ViewDefinitionEntry getViewDefinition(String viewId)
     {
-        return viewIdToViewDefinitionEntryMapping.get(viewId);
+        ViewDefinitionCache viewDefinitionCache = getCurrentViewDefinitionCache();
+
+        if(viewDefinitionCache == null)
+        {
+            return null;
+        }
+        return viewDefinitionCache.viewIdToViewDefinitionEntryMapping.get(viewId);
     }
 
     public static ViewDefinitionEntry getViewDefinition(Class<? extends ViewDefinition> viewDefinitionClass)
     {
-        return viewDefinitionToViewDefinitionEntryMapping.get(viewDefinitionClass);
+        ViewDefinitionCache viewDefinitionCache = getCurrentViewDefinitionCache();
+
+        if(viewDefinitionCache == null)
+        {
+            return null;
+        }
+        return viewDefinitionCache.viewDefinitionToViewDefinitionEntryMapping.get(viewDefinitionClass);
+    }
+
+    private static ViewDefinitionCache getCurrentViewDefinitionCache()
+    {
+        return viewDefinitionCaches.get(ClassUtils.getClassLoader(null));
     }
 }
@@ -22,6 +22,7 @@ import org.apache.myfaces.extensions.cdi.core.api.view.definition.ViewDefinition
 import org.apache.myfaces.extensions.cdi.javaee.jsf.api.view.definition.NavigationMode;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.api.view.definition.PageBean;
 
+import javax.faces.event.PhaseId;
 import javax.inject.Named;
 import java.util.List;
 import java.util.Collections;
@@ -38,6 +39,9 @@ public class ViewDefinitionEntry
     private final NavigationMode navigationMode;
     private final List<PageBeanDefinitionEntry> beanDefinition;
 
+    //indexed by phase-ordinal * 2 (+ 1 for after-phase callbacks)
+    private final PageBeanCallbacks[][] phasesLifecycleCallbacks;
+
     public ViewDefinitionEntry(String viewId,
                                Class<? extends ViewDefinition> viewDefinitionClass,
                                NavigationMode navigationMode)
@@ -47,6 +51,7 @@ public class ViewDefinitionEntry
         this.navigationMode = navigationMode;
 
         beanDefinition = Collections.unmodifiableList(findPageBeanDefinitions(viewDefinitionClass));
+        phasesLifecycleCallbacks = createPhasesLifecycleCallbacks(beanDefinition);
         //TODO validate view-id
     }
 
@@ -70,6 +75,59 @@ public class ViewDefinitionEntry
         return beanDefinition;
     }
 
+    /**
+     * @param phaseId current phase
+     * @param beforePhase true for the before-phase callbacks
+     * @return the page beans (with their callbacks) which have callbacks for the given phase
+     */
+    PageBeanCallbacks[] getPhasesLifecycleCallbacks(PhaseId phaseId, boolean beforePhase)
+    {
+        return phasesLifecycleCallbacks[phaseId.getOrdinal() * 2 + (beforePhase ? 0 : 1)];
+    }
+
+    private PageBeanCallbacks[][] createPhasesLifecycleCallbacks(List<PageBeanDefinitionEntry> pageBeanDefinitions)
+    {
+        PageBeanCallbacks[][] result = new PageBeanCallbacks[PhaseId.VALUES.size() * 2][];
+
+        List<PageBeanCallbacks> beforePhaseCallbacks = new ArrayList<PageBeanCallbacks>();
+        List<PageBeanCallbacks> afterPhaseCallbacks = new ArrayList<PageBeanCallbacks>();
+        PhasesLifecycleCallbackEntry callbackEntry;
+
+        for(Object phaseId : PhaseId.VALUES)
+        {
+            for(PageBeanDefinitionEntry pageBeanDefinition : pageBeanDefinitions)
+            {
+                callbackEntry = pageBeanDefinition.getPhasesLifecycleCallback((PhaseId)phaseId);
+
+                if(callbackEntry == null)
+                {
+                    continue;
+                }
+
+                if(!callbackEntry.getBeforePhaseCallbacks().isEmpty())
+                {
+                    beforePhaseCallbacks.add(
+                            new PageBeanCallbacks(pageBeanDefinition, callbackEntry.getBeforePhaseCallbacks()));
+                }
+
+                if(!callbackEntry.getAfterPhaseCallbacks().isEmpty())
+                {
+                    afterPhaseCallbacks.add(
+                            new PageBeanCallbacks(pageBeanDefinition, callbackEntry.getAfterPhaseCallbacks()));
+                }
+            }
+
+            result[((PhaseId)phaseId).getOrdinal() * 2] =
+                    beforePhaseCallbacks.toArray(new PageBeanCallbacks[beforePhaseCallbacks.size()]);
+            result[((PhaseId)phaseId).getOrdinal() * 2 + 1] =
+                    afterPhaseCallbacks.toArray(new PageBeanCallbacks[afterPhaseCallbacks.size()]);
+
+            beforePhaseCallbacks.clear();
+            afterPhaseCallbacks.clear();
+        }
+        return result;
+    }
+
     private List<PageBeanDefinitionEntry> findPageBeanDefinitions(Class<? extends ViewDefinition> viewDefinitionClass)
     {
         if(!viewDefinitionClass.isAnnotationPresent(PageBean.class) &&
@@ -18,33 +18,99 @@
  */
 package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view;
 
+import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
 import org.apache.myfaces.extensions.cdi.core.api.view.definition.ViewDefinition;
-import org.apache.myfaces.extensions.cdi.javaee.jsf.api.view.definition.JsfViewExtension;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.api.view.definition.NavigationMode;
 import org.apache.myfaces.extensions.cdi.javaee.jsf.api.view.definition.Page;
 
 import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.BeforeBeanDiscovery;
+import javax.enterprise.inject.spi.BeforeShutdown;
 import javax.enterprise.inject.spi.Extension;
 import javax.enterprise.inject.spi.ProcessAnnotatedType;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
+ * Creates the view definitions of all {@link Page} classes.
+ * The view-config index (see ViewConfigIndexProcessor of myfaces-extcdi-jsf12-module-view-config-index) is
+ * authoritative for the listed classes - their view-ids aren't created at runtime.
+ * The index is kept up-to-date by the build (the processor refreshes all entries of an existing index).
+ *
  * @author Gerhard Petracek
  */
 @SuppressWarnings({"UnusedDeclaration"})
 public class ViewDefinitionExtension implements Extension
 {
+    private static final Logger logger = Logger.getLogger(ViewDefinitionExtension.class.getName());
+
+    //only used during the bootstrapping process
+    private Map<String, ViewDefinitionEntry> viewIdToViewDefinitionEntryMapping =
+            new HashMap<String, ViewDefinitionEntry>();
+
+    //view-ids created by the ViewConfigIndexProcessor
+    private Properties viewConfigIndex;
+
+    public void loadViewConfigIndex(@Observes BeforeBeanDiscovery beforeBeanDiscovery)
+    {
+        this.viewConfigIndex = readViewConfigIndex();
+    }
+
     public void processPageDefinitions(@Observes ProcessAnnotatedType processAnnotatedType)
     {
-        if (processAnnotatedType.getAnnotatedType().isAnnotationPresent(Page.class))
+        Class<?> javaClass = processAnnotatedType.getAnnotatedType().getJavaClass();
+
+        //the index only contains valid (concrete) page definitions
+        String viewId = this.viewConfigIndex.getProperty(javaClass.getName() + PageDefinitionUtils.VIEW_ID_KEY_SUFFIX);
+
+        if (viewId != null)
         {
-            addPageDefinition(processAnnotatedType.getAnnotatedType().getJavaClass());
+            addIndexedPageDefinition(javaClass, viewId);
             processAnnotatedType.veto();
         }
+        else if (processAnnotatedType.getAnnotatedType().isAnnotationPresent(Page.class))
+        {
+            addPageDefinition(javaClass);
+            processAnnotatedType.veto();
+        }
+    }
+
+    public void publishViewDefinitions(@Observes AfterBeanDiscovery afterBeanDiscovery)
+    {
+        //all types are processed - observers of AfterDeploymentValidation can already use the cache
+        ViewDefinitionCache.publish(this.viewIdToViewDefinitionEntryMapping);
+        this.viewIdToViewDefinitionEntryMapping.clear();
+        this.viewConfigIndex = null;
     }
 
+    public void resetViewDefinitions(@Observes BeforeShutdown beforeShutdown)
+    {
+        ViewDefinitionCache.reset();
+    }
+
+    private void addIndexedPageDefinition(Class pageDefinitionClass, String viewId)
+    {
+        NavigationMode navigationMode = NavigationMode.valueOf(this.viewConfigIndex.getProperty(
+                pageDefinitionClass.getName() + PageDefinitionUtils.NAVIGATION_MODE_KEY_SUFFIX));
+
+        @SuppressWarnings({"unchecked"})
+        Class<? extends ViewDefinition> viewDefinitionClass = (Class<? extends ViewDefinition>)pageDefinitionClass;
+
+        addViewDefinition(viewId, new ViewDefinitionEntry(viewId, viewDefinitionClass, navigationMode));
+    }
+
+    //fallback for page definitions which aren't indexed
     private void addPageDefinition(Class pageDefinitionClass)
     {
         if(!ViewDefinition.class.isAssignableFrom(pageDefinitionClass))
@@ -62,129 +128,66 @@ public class ViewDefinitionExtension implements Extension
             return;
         }
 
-        Class<?> currentClass = viewDefinitionClass;
-
-        String rootPath = "/";
-        String basePath = rootPath;
-        String currentBasePath;
-        Map<String, String> simpleClassNameToPathMapping = new HashMap<String, String>();
-
-        String defaultPageName = "";
-        String pageName = defaultPageName;
+        List<String> simpleClassNames = new ArrayList<String>();
+        List<Page> pageAnnotations = new ArrayList<Page>();
 
-        String defaultExtension = JsfViewExtension.XHTML;
-        String extension = defaultExtension;
-
-        NavigationMode defaultNavigationMode = NavigationMode.FORWARD;
-        NavigationMode navigationMode = defaultNavigationMode;
-
-        //TODO
-        Page pageAnnotation;
+        Class<?> currentClass = viewDefinitionClass;
         while(!Object.class.getName().equals(currentClass.getName()))
         {
-            if(currentClass.isAnnotationPresent(Page.class))
-            {
-                pageAnnotation = currentClass.getAnnotation(Page.class);
-
-                if(!pageAnnotation.extension().equals(defaultExtension))
-                {
-                    extension = pageAnnotation.extension();
-                }
-
-                if(!pageAnnotation.basePath().equals(rootPath))
-                {
-                    currentBasePath = pageAnnotation.basePath();
-
-                    if(!".".equals(currentBasePath))
-                    {
-                        simpleClassNameToPathMapping.put(currentClass.getSimpleName(), currentBasePath);
-                    }
-
-                    if(rootPath.equals(basePath))
-                    {
-                        basePath = currentBasePath;
-                    }
-                }
-
-                if(!pageAnnotation.navigation().equals(defaultNavigationMode))
-                {
-                    navigationMode = pageAnnotation.navigation();
-                }
-
-                if(!pageAnnotation.name().equals(defaultPageName))
-                {
-                    pageName = pageAnnotation.name();
-                }
-            }
+            simpleClassNames.add(currentClass.getSimpleName());
+            pageAnnotations.add(currentClass.getAnnotation(Page.class));
 
             currentClass = currentClass.getSuperclass();
         }
 
-        StringBuilder viewId = new StringBuilder(basePath);
-        if(pageName.equals(""))
-        {
-            String className = viewDefinitionClass.getName();
+        String viewId =
+                PageDefinitionUtils.createViewId(viewDefinitionClass.getName(), simpleClassNames, pageAnnotations);
+        NavigationMode navigationMode = PageDefinitionUtils.getNavigationMode(pageAnnotations);
 
-            //MyClass$MyInnerClass will be converted to /MyClass/MyInnerClass
-            if(className.contains("$") && ".".equals(basePath))
-            {
-                basePath = "";
-                className = className.substring(className.lastIndexOf(".") + 1);
-                className = convertToPathSyntax(className, simpleClassNameToPathMapping);
-            }
-            else if(className.contains("$"))
-            {
-                className = className.substring(className.lastIndexOf("$") + 1);
-            }
-            else
-            {
-                className = className.substring(className.lastIndexOf(".") + 1);
-            }
-            className = className.substring(0, 1).toLowerCase() + className.substring(1);
-            viewId.append(className);
-        }
-        else
-        {
-            viewId.append(pageName);
-        }
-        viewId.append(".");
-        viewId.append(extension);
-        String result = viewId.toString();
+        addViewDefinition(viewId, new ViewDefinitionEntry(viewId, viewDefinitionClass, navigationMode));
+    }
 
-        if(result.startsWith("."))
+    private void addViewDefinition(String viewId, ViewDefinitionEntry viewDefinitionEntry)
+    {
+        if(this.viewIdToViewDefinitionEntryMapping.containsKey(viewId))
         {
-            if(result.startsWith("./"))
-            {
-                result = result.substring(1);
-            }
-            else
-            {
-                result = rootPath + result.substring(1);
-            }
+            throw new IllegalArgumentException(viewId + " is already mapped to "
+                    + viewId + " -> a further view definition (" +
+                    viewDefinitionEntry.getViewDefinitionClass().getName() + ") is invalid");
         }
-        ViewDefinitionCache.addViewDefinition(
-                result, new ViewDefinitionEntry(result, viewDefinitionClass, navigationMode));
+        this.viewIdToViewDefinitionEntryMapping.put(viewId, viewDefinitionEntry);
     }
 
-    private String convertToPathSyntax(String className, Map<String, String> simpleClassNameToPathMapping)
+    private Properties readViewConfigIndex()
     {
-        String[] parts = className.split("\\$");
-        StringBuilder path = new StringBuilder();
+        Properties result = new Properties();
 
-        for(String part : parts)
+        try
         {
-            if(simpleClassNameToPathMapping.containsKey(part))
-            {
-                path.append(simpleClassNameToPathMapping.get(part));
-            }
-            else
+            Enumeration<URL> indexFiles =
+                    ClassUtils.getClassLoader(null).getResources(PageDefinitionUtils.VIEW_CONFIG_INDEX);
+
+            InputStream inputStream;
+            while(indexFiles.hasMoreElements())
             {
-                path.append(part.substring(0, 1).toLowerCase());
-                path.append(part.substring(1));
+                inputStream = indexFiles.nextElement().openStream();
+
+                try
+                {
+                    result.load(inputStream);
+                }
+                finally
+                {
+                    inputStream.close();
+                }
             }
-            path.append("/");
         }
-        String result = path.toString();
-        return result.substring(0, result.length() - 1);
+        catch (IOException e)
+        {
+            //the index is just an optimization - all page definitions get processed via reflection
+            logger.log(Level.WARNING, "failed to load " + PageDefinitionUtils.VIEW_CONFIG_INDEX, e);
+            result.clear();
+        }
+        return result;
     }
 }
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.listener.phase;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.BeforePhase;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.PhaseId;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.test.util.TestFacesContext;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import javax.enterprise.event.Event;
+import javax.enterprise.inject.spi.ObserverMethod;
+import javax.enterprise.inject.spi.ProcessObserverMethod;
+import javax.faces.context.FacesContext;
+import javax.faces.event.PhaseEvent;
+import javax.faces.event.PhaseListener;
+import javax.faces.lifecycle.Lifecycle;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class PhaseEventDispatcherTest
+{
+    private final List<Annotation> selectedQualifiers = new ArrayList<Annotation>();
+
+    private final List<Annotation> firedQualifiers = new ArrayList<Annotation>();
+
+    private PhaseObserverExtension extension = new PhaseObserverExtension();
+
+    private TestFacesContext facesContext = new TestFacesContext();
+
+    @AfterMethod
+    public void reset()
+    {
+        this.facesContext.release();
+        this.facesContext = new TestFacesContext();
+        this.extension.resetObservedPhases(null);
+        this.extension = new PhaseObserverExtension();
+        this.selectedQualifiers.clear();
+        this.firedQualifiers.clear();
+    }
+
+    @Test
+    public void testOnlyObservedEventsAreSelectedAndFired() throws Exception
+    {
+        observe(new BeforePhaseLiteral(PhaseId.RENDER_RESPONSE));
+        this.extension.publishObservedPhases(null);
+
+        PhaseEventDispatcher phaseEventDispatcher = createPhaseEventDispatcher();
+
+        Assert.assertEquals(this.selectedQualifiers.size(), 1);
+
+        phaseEventDispatcher.fireBeforeEvent(createPhaseEvent(javax.faces.event.PhaseId.RESTORE_VIEW));
+        phaseEventDispatcher.fireAfterEvent(createPhaseEvent(javax.faces.event.PhaseId.RENDER_RESPONSE));
+        Assert.assertTrue(this.firedQualifiers.isEmpty());
+
+        phaseEventDispatcher.fireBeforeEvent(createPhaseEvent(javax.faces.event.PhaseId.RENDER_RESPONSE));
+        Assert.assertEquals(this.firedQualifiers.size(), 1);
+        Assert.assertEquals(((BeforePhase) this.firedQualifiers.get(0)).value(), PhaseId.RENDER_RESPONSE);
+    }
+
+    @Test
+    public void testAllEventsAreFiredWithoutObserverInformation() throws Exception
+    {
+        PhaseEventDispatcher phaseEventDispatcher = createPhaseEventDispatcher();
+
+        phaseEventDispatcher.fireBeforeEvent(createPhaseEvent(javax.faces.event.PhaseId.RESTORE_VIEW));
+        phaseEventDispatcher.fireAfterEvent(createPhaseEvent(javax.faces.event.PhaseId.RESTORE_VIEW));
+
+        //the phase specific and the ANY_PHASE event
+        Assert.assertEquals(this.firedQualifiers.size(), 4);
+    }
+
+    private PhaseEventDispatcher createPhaseEventDispatcher() throws Exception
+    {
+        PhaseEventDispatcher phaseEventDispatcher = new PhaseEventDispatcher();
+
+        Field eventField = PhaseEventDispatcher.class.getDeclaredField("phaseEvent");
+        eventField.setAccessible(true);
+        eventField.set(phaseEventDispatcher, createEvent(null));
+
+        phaseEventDispatcher.init();
+        return phaseEventDispatcher;
+    }
+
+    private Event createEvent(final Annotation qualifier)
+    {
+        return (Event) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Event.class},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("select".equals(method.getName()))
+                        {
+                            Annotation selectedQualifier = (Annotation) ((Object[]) args[args.length - 1])[0];
+                            selectedQualifiers.add(selectedQualifier);
+                            return createEvent(selectedQualifier);
+                        }
+                        if ("fire".equals(method.getName()))
+                        {
+                            firedQualifiers.add(qualifier);
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private PhaseEvent createPhaseEvent(javax.faces.event.PhaseId phaseId)
+    {
+        return new PhaseEvent(this.facesContext, phaseId, new TestLifecycle());
+    }
+
+    private void observe(final Annotation qualifier)
+    {
+        final ObserverMethod observerMethod = (ObserverMethod) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ObserverMethod.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("getObservedType".equals(method.getName()))
+                        {
+                            return PhaseEvent.class;
+                        }
+                        if ("getObservedQualifiers".equals(method.getName()))
+                        {
+                            return Collections.singleton(qualifier);
+                        }
+                        return null;
+                    }
+                });
+
+        this.extension.recordObservedPhases((ProcessObserverMethod) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[]{ProcessObserverMethod.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        return observerMethod;
+                    }
+                }));
+    }
+
+    private static class TestLifecycle extends Lifecycle
+    {
+        public void addPhaseListener(PhaseListener phaseListener)
+        {
+        }
+
+        public void execute(FacesContext facesContext)
+        {
+        }
+
+        public PhaseListener[] getPhaseListeners()
+        {
+            return new PhaseListener[0];
+        }
+
+        public void removePhaseListener(PhaseListener phaseListener)
+        {
+        }
+
+        public void render(FacesContext facesContext)
+        {
+        }
+    }
+
+    private static class BeforePhaseLiteral extends BeforePhaseBinding
+    {
+        private static final long serialVersionUID = 5236814451239614283L;
+
+        private final PhaseId phaseId;
+
+        private BeforePhaseLiteral(PhaseId phaseId)
+        {
+            this.phaseId = phaseId;
+        }
+
+        public PhaseId value()
+        {
+            return this.phaseId;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.listener.phase;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.JsfLifecyclePhaseInformation;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.PhaseId;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import javax.enterprise.inject.spi.InjectionPoint;
+import javax.enterprise.inject.spi.InjectionTarget;
+import javax.enterprise.inject.spi.ObserverMethod;
+import javax.enterprise.inject.spi.ProcessInjectionTarget;
+import javax.enterprise.inject.spi.ProcessObserverMethod;
+import javax.faces.event.PhaseEvent;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class PhaseObserverExtensionTest
+{
+    private PhaseObserverExtension extension = new PhaseObserverExtension();
+
+    @AfterMethod
+    public void reset()
+    {
+        this.extension.resetObservedPhases(null);
+        this.extension = new PhaseObserverExtension();
+    }
+
+    @Test
+    public void testAllPhasesAreObservedWithoutProcessObserverMethodEvents()
+    {
+        this.extension.publishObservedPhases(null);
+
+        Assert.assertEquals(PhaseObserverExtension.getObservedPhases(), PhaseObserverExtension.ALL_PHASES);
+    }
+
+    @Test
+    public void testQualifiedObserverMarksOnlyItsPhase()
+    {
+        observe(PhaseEvent.class, new BeforePhaseLiteral(PhaseId.RENDER_RESPONSE));
+        observe(String.class);
+        this.extension.publishObservedPhases(null);
+
+        int observedPhases = PhaseObserverExtension.getObservedPhases();
+
+        Assert.assertEquals(observedPhases,
+                PhaseObserverExtension.getBeforePhaseBit(javax.faces.event.PhaseId.RENDER_RESPONSE));
+        Assert.assertEquals(observedPhases & PhaseObserverExtension.PHASE_INFORMATION_USED, 0);
+    }
+
+    @Test
+    public void testAnyPhaseObserverMarksOnlyTheAnyPhaseBit()
+    {
+        observe(PhaseEvent.class, new BeforePhaseLiteral(PhaseId.ANY_PHASE));
+        this.extension.publishObservedPhases(null);
+
+        Assert.assertEquals(PhaseObserverExtension.getObservedPhases(),
+                PhaseObserverExtension.getBeforePhaseBit(javax.faces.event.PhaseId.ANY_PHASE));
+    }
+
+    @Test
+    public void testUnqualifiedObserverMarksAllPhaseEvents()
+    {
+        observe(PhaseEvent.class);
+        this.extension.publishObservedPhases(null);
+
+        int observedPhases = PhaseObserverExtension.getObservedPhases();
+
+        for (Object phaseId : javax.faces.event.PhaseId.VALUES)
+        {
+            Assert.assertTrue((observedPhases &
+                    PhaseObserverExtension.getBeforePhaseBit((javax.faces.event.PhaseId) phaseId)) != 0);
+            Assert.assertTrue((observedPhases &
+                    PhaseObserverExtension.getAfterPhaseBit((javax.faces.event.PhaseId) phaseId)) != 0);
+        }
+        Assert.assertEquals(observedPhases & PhaseObserverExtension.PHASE_INFORMATION_USED, 0);
+    }
+
+    @Test
+    public void testInjectedPhaseInformationIsRecorded()
+    {
+        observe(PhaseEvent.class, new BeforePhaseLiteral(PhaseId.RENDER_RESPONSE));
+        inject(JsfLifecyclePhaseInformation.class);
+        this.extension.publishObservedPhases(null);
+
+        Assert.assertTrue(
+                (PhaseObserverExtension.getObservedPhases() & PhaseObserverExtension.PHASE_INFORMATION_USED) != 0);
+    }
+
+    private void inject(final Class injectedType)
+    {
+        final InjectionPoint injectionPoint = createProxy(InjectionPoint.class, "getType", injectedType);
+        final InjectionTarget injectionTarget = createProxy(InjectionTarget.class,
+                "getInjectionPoints", Collections.singleton(injectionPoint));
+
+        this.extension.recordPhaseInformationUsage(
+                createProxy(ProcessInjectionTarget.class, "getInjectionTarget", injectionTarget));
+    }
+
+    private <T> T createProxy(Class<T> type, final String methodName, final Object result)
+    {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{type},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if (methodName.equals(method.getName()))
+                        {
+                            return result;
+                        }
+                        return null;
+                    }
+                }));
+    }
+
+    private void observe(final Class observedType, Annotation... qualifiers)
+    {
+        final Set<Annotation> observedQualifiers = new HashSet<Annotation>();
+        Collections.addAll(observedQualifiers, qualifiers);
+
+        final ObserverMethod observerMethod = (ObserverMethod) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ObserverMethod.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("getObservedType".equals(method.getName()))
+                        {
+                            return observedType;
+                        }
+                        if ("getObservedQualifiers".equals(method.getName()))
+                        {
+                            return observedQualifiers;
+                        }
+                        return null;
+                    }
+                });
+
+        this.extension.recordObservedPhases(
+                createProxy(ProcessObserverMethod.class, "getObserverMethod", observerMethod));
+    }
+
+    private static class BeforePhaseLiteral extends BeforePhaseBinding
+    {
+        private static final long serialVersionUID = -3542474528165011316L;
+
+        private final PhaseId phaseId;
+
+        private BeforePhaseLiteral(PhaseId phaseId)
+        {
+            this.phaseId = phaseId;
+        }
+
+        public PhaseId value()
+        {
+            return this.phaseId;
+        }
+    }
+}
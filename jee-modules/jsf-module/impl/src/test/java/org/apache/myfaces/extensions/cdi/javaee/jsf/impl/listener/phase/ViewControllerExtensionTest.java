@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.listener.phase;
+
+import org.apache.myfaces.extensions.cdi.core.api.view.definition.View;
+import org.apache.myfaces.extensions.cdi.core.api.view.definition.ViewDefinition;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.BeforePhase;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.PhaseId;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
+import javax.faces.event.PhaseEvent;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class ViewControllerExtensionTest
+{
+    private final ViewControllerExtension extension = new ViewControllerExtension();
+
+    @AfterMethod
+    public void reset()
+    {
+        this.extension.resetViewIds(null);
+    }
+
+    @Test
+    public void testViewIdsOfProcessedMethodsAreResolvedDuringTheDeployment() throws Exception
+    {
+        this.extension.findViewControllerMethods(createProcessAnnotatedType(ProcessedViewController.class));
+        this.extension.resolveViewIds(null);
+
+        Method method = ProcessedViewController.class.getDeclaredMethod("preRenderView", PhaseEvent.class);
+        Set<String> viewIds = ViewControllerExtension.getViewIds(method);
+
+        Assert.assertEquals(viewIds, Collections.singleton("/processed.xhtml"));
+        Assert.assertSame(ViewControllerExtension.getViewIds(method), viewIds);
+    }
+
+    @Test
+    public void testViewIdsOfUnknownMethodsAreResolvedViaReflectionOnce() throws Exception
+    {
+        this.extension.resolveViewIds(null);
+
+        Method method = UnknownViewController.class.getDeclaredMethod("preRenderView", PhaseEvent.class);
+        Set<String> viewIds = ViewControllerExtension.getViewIds(method);
+
+        Assert.assertEquals(viewIds, Collections.singleton("/unknown.xhtml"));
+        Assert.assertSame(ViewControllerExtension.getViewIds(method), viewIds);
+    }
+
+    @Test
+    public void testUnknownMethodsWhichArentObserversAreUnrestricted() throws Exception
+    {
+        this.extension.resolveViewIds(null);
+
+        Method method = UnknownViewController.class.getDeclaredMethod("action");
+
+        Assert.assertNull(ViewControllerExtension.getViewIds(method));
+        Assert.assertNull(ViewControllerExtension.getViewIds(method));
+    }
+
+    private ProcessAnnotatedType createProcessAnnotatedType(final Class<?> javaClass)
+    {
+        final AnnotatedType annotatedType = (AnnotatedType) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{AnnotatedType.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        return javaClass;
+                    }
+                });
+
+        return (ProcessAnnotatedType) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ProcessAnnotatedType.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        return annotatedType;
+                    }
+                });
+    }
+
+    static class ProcessedViewController
+    {
+        @View(value = {}, inline = "/processed.xhtml")
+        protected void preRenderView(@Observes @BeforePhase(PhaseId.RENDER_RESPONSE) PhaseEvent phaseEvent)
+        {
+        }
+    }
+
+    @View(value = {}, inline = "/unknown.xhtml")
+    static class UnknownViewController
+    {
+        protected void preRenderView(@Observes @BeforePhase(PhaseId.RENDER_RESPONSE) PhaseEvent phaseEvent)
+        {
+        }
+
+        @View(value = {ViewDefinition.class})
+        protected void action()
+        {
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.request;
+
+import org.apache.myfaces.extensions.cdi.core.api.manager.BeanManagerProvider;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.test.util.TestExternalContext;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.test.util.TestFacesContext;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.enterprise.context.spi.CreationalContext;
+import javax.enterprise.event.Event;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.faces.context.ExternalContext;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class CodiFacesContextWrapperTest
+{
+    private TestFacesContext wrappedFacesContext;
+
+    private CodiFacesContextWrapper facesContext;
+
+    @BeforeMethod
+    public void init()
+    {
+        new BeanManagerProvider().setBeanManager(null, createBeanManager());
+
+        this.wrappedFacesContext = new TestFacesContext();
+        this.facesContext = new CodiFacesContextWrapper(this.wrappedFacesContext);
+    }
+
+    @AfterMethod
+    public void release()
+    {
+        this.facesContext.release();
+    }
+
+    @Test
+    public void testExternalContextIsCreatedOncePerFacesContext()
+    {
+        ExternalContext externalContext = this.facesContext.getExternalContext();
+
+        Assert.assertNotSame(externalContext, this.wrappedFacesContext.getExternalContext());
+        Assert.assertSame(this.facesContext.getExternalContext(), externalContext);
+    }
+
+    @Test
+    public void testReplacedExternalContextGetsWrapped()
+    {
+        ExternalContext externalContext = this.facesContext.getExternalContext();
+
+        //e.g. a portlet bridge or a component library which replaces the external context
+        this.wrappedFacesContext.setExternalContext(new TestExternalContext());
+
+        Assert.assertNotSame(this.facesContext.getExternalContext(), externalContext);
+        Assert.assertSame(this.facesContext.getExternalContext(), this.facesContext.getExternalContext());
+    }
+
+    private BeanManager createBeanManager()
+    {
+        final Bean broadcasterBean = createStub(Bean.class, new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+            {
+                if ("create".equals(method.getName()))
+                {
+                    return createBroadcaster();
+                }
+                return null;
+            }
+        });
+
+        return createStub(BeanManager.class, new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+            {
+                if ("getBeans".equals(method.getName()))
+                {
+                    return Collections.singleton(broadcasterBean);
+                }
+                if ("createCreationalContext".equals(method.getName()))
+                {
+                    return createStub(CreationalContext.class, null);
+                }
+                return null;
+            }
+        });
+    }
+
+    private BeforeAfterFacesRequestBroadcaster createBroadcaster() throws Exception
+    {
+        BeforeAfterFacesRequestBroadcaster broadcaster = new BeforeAfterFacesRequestBroadcaster();
+
+        for (Field field : BeforeAfterFacesRequestBroadcaster.class.getDeclaredFields())
+        {
+            if (Event.class.equals(field.getType()))
+            {
+                field.setAccessible(true);
+                field.set(broadcaster, createStub(Event.class, null));
+            }
+        }
+        return broadcaster;
+    }
+
+    private <T> T createStub(Class<T> type, InvocationHandler invocationHandler)
+    {
+        if (invocationHandler == null)
+        {
+            invocationHandler = new InvocationHandler()
+            {
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                {
+                    return null;
+                }
+            };
+        }
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{type}, invocationHandler));
+    }
+}
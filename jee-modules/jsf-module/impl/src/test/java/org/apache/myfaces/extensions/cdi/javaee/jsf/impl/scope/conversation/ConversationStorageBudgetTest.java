@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class ConversationStorageBudgetTest
+{
+    @Test
+    public void testSessionReleasesItsShareOfTheGlobalExcess()
+    {
+        //the session uses 10% of the storage -> it releases 10% of the excess
+        Assert.assertEquals(ConversationStorageBudget.calculateSizeToRelease(1000, 10000, 0, 8000), 200);
+    }
+
+    @Test
+    public void testSmallSessionKeepsItsConversations()
+    {
+        //a session with 1 KB isn't responsible for 10 KB of other sessions
+        Assert.assertEquals(ConversationStorageBudget.calculateSizeToRelease(1024, 100000, 0, 90000), 103);
+        Assert.assertTrue(ConversationStorageBudget.calculateSizeToRelease(1024, 100000, 0, 90000) < 1024);
+    }
+
+    @Test
+    public void testReleasedSizeDoesntExceedTheSessionUsage()
+    {
+        //e.g. parallel releases of other sessions in the meantime
+        Assert.assertEquals(ConversationStorageBudget.calculateSizeToRelease(1000, 900, 0, 100), 889);
+        Assert.assertEquals(ConversationStorageBudget.calculateSizeToRelease(0, 10000, 0, 8000), 0);
+    }
+
+    @Test
+    public void testLimitPerSession()
+    {
+        Assert.assertEquals(ConversationStorageBudget.calculateSizeToRelease(5000, 5000, 4000, 0), 1000);
+
+        //the higher value of both limits
+        Assert.assertEquals(ConversationStorageBudget.calculateSizeToRelease(5000, 10000, 4000, 9000), 1000);
+        Assert.assertEquals(ConversationStorageBudget.calculateSizeToRelease(5000, 10000, 4900, 5000), 2500);
+    }
+
+    @Test
+    public void testNoLimitExceeded()
+    {
+        Assert.assertEquals(ConversationStorageBudget.calculateSizeToRelease(5000, 10000, 6000, 20000), 0);
+        Assert.assertEquals(ConversationStorageBudget.calculateSizeToRelease(5000, 10000, 0, 0), 0);
+    }
+}
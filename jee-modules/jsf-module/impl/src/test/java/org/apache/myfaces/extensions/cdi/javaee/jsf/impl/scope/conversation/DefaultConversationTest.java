@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.ConversationScoped;
+import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.BeanEntry;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.test.util.ConcurrentTestUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.enterprise.context.spi.CreationalContext;
+import javax.enterprise.inject.spi.Bean;
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.Callable;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class DefaultConversationTest
+{
+    @Test
+    public void testCachedBeanInstanceGetsInvalidatedByOtherThread() throws Exception
+    {
+        final DefaultConversation conversation = createConversation();
+        TestBeanEntry beanEntry = new TestBeanEntry("instance");
+        conversation.addBean(beanEntry);
+
+        int generation = conversation.getGeneration();
+        Serializable cachedBeanInstance = conversation.getBean(String.class);
+        Assert.assertTrue(conversation.isCurrentBeanInstance(String.class, cachedBeanInstance));
+        Assert.assertTrue(conversation.isCurrentGeneration(generation));
+
+        //e.g. a parallel request of the same window
+        ConcurrentTestUtils.runConcurrently(1, new Callable<Object>()
+        {
+            public Object call() throws Exception
+            {
+                conversation.end();
+                return null;
+            }
+        });
+
+        Assert.assertFalse(conversation.isCurrentGeneration(generation));
+        Assert.assertFalse(conversation.isCurrentBeanInstance(String.class, cachedBeanInstance));
+    }
+
+    @Test
+    public void testCachedBeanInstanceGetsInvalidatedByRestart() throws Exception
+    {
+        DefaultConversation conversation = createConversation();
+        conversation.addBean(new TestBeanEntry("instance"));
+
+        int generation = conversation.getGeneration();
+        Serializable cachedBeanInstance = conversation.getBean(String.class);
+
+        conversation.restart();
+
+        Assert.assertFalse(conversation.isCurrentGeneration(generation));
+        Assert.assertFalse(conversation.isCurrentBeanInstance(String.class, cachedBeanInstance));
+    }
+
+    @Test
+    public void testIdleConversationGetsPassivatedAndRestored() throws Exception
+    {
+        DefaultConversation conversation = createConversation();
+        conversation.addBean(new TestBeanEntry("instance"));
+
+        int generation = conversation.getGeneration();
+        Serializable cachedBeanInstance = conversation.getBean(String.class);
+
+        Assert.assertTrue(conversation.passivate(0));
+        Assert.assertFalse(conversation.isCurrentGeneration(generation));
+        Assert.assertTrue(conversation.isPassivated());
+        Assert.assertEquals(conversation.getBeanCount(), 1);
+        Assert.assertFalse(conversation.isCurrentBeanInstance(String.class, cachedBeanInstance));
+
+        Serializable restoredBeanInstance = conversation.getBean(String.class);
+
+        Assert.assertFalse(conversation.isPassivated());
+        Assert.assertEquals(restoredBeanInstance, cachedBeanInstance);
+        Assert.assertNotSame(restoredBeanInstance, cachedBeanInstance);
+    }
+
+    @Test
+    public void testRecentlyUsedConversationIsNotPassivated() throws Exception
+    {
+        DefaultConversation conversation = createConversation();
+        conversation.addBean(new TestBeanEntry("instance"));
+        conversation.getBean(String.class);
+
+        Assert.assertFalse(conversation.passivate(60 * 1000L));
+        Assert.assertFalse(conversation.isPassivated());
+    }
+
+    @Test
+    public void testAddedBeanEntryChangesTheGeneration() throws Exception
+    {
+        DefaultConversation conversation = createConversation();
+        conversation.addBean(new TestBeanEntry("instance"));
+
+        int generation = conversation.getGeneration();
+        conversation.getBean(String.class);
+        Assert.assertTrue(conversation.isCurrentGeneration(generation));
+
+        conversation.addBean(new TestBeanEntry("replaced instance"));
+
+        Assert.assertFalse(conversation.isCurrentGeneration(generation));
+    }
+
+    private DefaultConversation createConversation()
+    {
+        return new DefaultConversation(
+                new DefaultConversationKey(ConversationScoped.class), new TimeoutConversationExpirationEvaluator(30));
+    }
+
+    private static class TestBeanEntry implements BeanEntry<Serializable>
+    {
+        private static final long serialVersionUID = 3167463451263549321L;
+
+        private final Serializable beanInstance;
+
+        private volatile Serializable currentBeanInstance;
+
+        private TestBeanEntry(Serializable beanInstance)
+        {
+            this.beanInstance = beanInstance;
+            this.currentBeanInstance = beanInstance;
+        }
+
+        @SuppressWarnings({"unchecked"})
+        public Bean<Serializable> getBean()
+        {
+            return (Bean<Serializable>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class[]{Bean.class}, new InvocationHandler()
+                    {
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                        {
+                            if ("getBeanClass".equals(method.getName()))
+                            {
+                                return beanInstance.getClass();
+                            }
+                            return null;
+                        }
+                    });
+        }
+
+        public CreationalContext<Serializable> getCreationalContext()
+        {
+            return null;
+        }
+
+        public Serializable getBeanInstance()
+        {
+            if (this.currentBeanInstance == null)
+            {
+                this.currentBeanInstance = new String(this.beanInstance.toString());
+            }
+            return this.currentBeanInstance;
+        }
+
+        public Serializable getCurrentBeanInstance()
+        {
+            return this.currentBeanInstance;
+        }
+
+        public Serializable resetBeanInstance()
+        {
+            Serializable oldBeanInstance = this.currentBeanInstance;
+            this.currentBeanInstance = null;
+            return oldBeanInstance;
+        }
+
+        public boolean isScopeBeanEventEnabled()
+        {
+            return false;
+        }
+
+        public boolean isBeanAccessEventEnabled()
+        {
+            return false;
+        }
+
+        public boolean isUnscopeBeanEventEnabled()
+        {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.core.api.projectstage.ProjectStage;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.EditableWindowContext;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.JsfAwareWindowContextConfig;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowContextFactory;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.test.util.ConcurrentTestUtils;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.test.util.TestFacesContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.faces.context.FacesContext;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class DefaultWindowContextManagerTest
+{
+    private static final int THREAD_COUNT = 64;
+
+    @Test
+    public void testConcurrentReservationsDontExceedQuota() throws Exception
+    {
+        final DefaultWindowContextManager windowContextManager = createWindowContextManager(16);
+
+        List<Boolean> results = ConcurrentTestUtils.runConcurrently(THREAD_COUNT, new Callable<Boolean>()
+        {
+            public Boolean call() throws Exception
+            {
+                return windowContextManager.tryToReserveWindowContext();
+            }
+        });
+
+        int reservationCount = 0;
+        for (Boolean result : results)
+        {
+            if (result)
+            {
+                reservationCount++;
+            }
+        }
+
+        Assert.assertEquals(reservationCount, 16);
+        Assert.assertEquals(windowContextManager.getWindowContextCount(), 16);
+    }
+
+    @Test
+    public void testConcurrentWindowContextLookup() throws Exception
+    {
+        //throughput of a single session with 1-32 parallel requests
+        for (int threadCount = 1; threadCount <= 32; threadCount *= 2)
+        {
+            final DefaultWindowContextManager windowContextManager = createWindowContextManager(128);
+            final AtomicInteger counter = new AtomicInteger();
+
+            ConcurrentTestUtils.benchmark("window context lookup", threadCount, 10000, new Runnable()
+            {
+                public void run()
+                {
+                    windowContextManager.getWindowContext("w" + (counter.incrementAndGet() & 7));
+                }
+            });
+
+            //parallel requests which create the same window context have to share one instance
+            Assert.assertEquals(windowContextManager.getWindowContexts().size(), 8);
+            Assert.assertEquals(windowContextManager.getWindowContextCount(), 8);
+        }
+    }
+
+    @Test
+    public void testWindowContextWhichStaysInactiveIsRejected() throws Exception
+    {
+        TestWindowContextConfig windowContextConfig = new TestWindowContextConfig(128)
+        {
+            private static final long serialVersionUID = -6164430392545734128L;
+
+            @Override
+            public WindowContextFactory getWindowContextFactory()
+            {
+                return new WindowContextFactory()
+                {
+                    public EditableWindowContext createWindowContext(String windowContextId,
+                                                                     JsfAwareWindowContextConfig windowContextConfig)
+                    {
+                        return new JsfWindowContext(windowContextId, windowContextConfig, false)
+                        {
+                            private static final long serialVersionUID = 4397856210637124718L;
+
+                            @Override
+                            public boolean isActive()
+                            {
+                                return false;
+                            }
+                        };
+                    }
+                };
+            }
+        };
+
+        DefaultWindowContextManager windowContextManager =
+                new DefaultWindowContextManager(windowContextConfig, ProjectStage.UnitTest);
+
+        //the removal of an inactive window context resets the information of the current request
+        FacesContext facesContext = new TestFacesContext();
+
+        try
+        {
+            windowContextManager.getWindowContext("w1");
+            Assert.fail("an inactive window context mustn't be returned");
+        }
+        catch (IllegalStateException e)
+        {
+            //expected - instead of a StackOverflowError
+        }
+        finally
+        {
+            facesContext.release();
+        }
+    }
+
+    @Test
+    public void testExpiredWindowContextGetsRemovedFromManager() throws Exception
+    {
+        DefaultWindowContextManager windowContextManager = createWindowContextManager(128);
+        JsfWindowContext windowContext = (JsfWindowContext) windowContextManager.getWindowContext("w1");
+
+        windowContextManager.expireWindowContext(windowContext);
+
+        Assert.assertTrue(windowContextManager.getWindowContexts().isEmpty());
+        Assert.assertEquals(windowContextManager.getWindowContextCount(), 0);
+        Assert.assertNull(windowContextManager.getWindowContextToEvict());
+
+        //a second callback (e.g. of a request which detected the expiration) mustn't release it again
+        windowContextManager.expireWindowContext(windowContext);
+        Assert.assertEquals(windowContextManager.getWindowContextCount(), 0);
+    }
+
+    @Test
+    public void testCancelledExpirationReleasesEntry() throws Exception
+    {
+        final AtomicInteger expirationCount = new AtomicInteger();
+
+        ScheduledExpiration scheduledExpiration = new ScheduledExpiration(new ExpirableEntry()
+        {
+            public long getExpirationTime()
+            {
+                return Long.MAX_VALUE;
+            }
+
+            public void expire()
+            {
+                expirationCount.incrementAndGet();
+            }
+        });
+
+        scheduledExpiration.cancel();
+
+        //a cancelled entry is expired for the timing wheel, but it doesn't invoke the wrapped entry
+        Assert.assertTrue(scheduledExpiration.getExpirationTime() - System.nanoTime() <= 0);
+        scheduledExpiration.expire();
+        Assert.assertEquals(expirationCount.get(), 0);
+    }
+
+    @Test
+    public void testLruEvictionOrder() throws Exception
+    {
+        DefaultWindowContextManager windowContextManager = createWindowContextManager(128);
+        EditableWindowContext windowContext1 = (EditableWindowContext) windowContextManager.getWindowContext("w1");
+        EditableWindowContext windowContext2 = (EditableWindowContext) windowContextManager.getWindowContext("w2");
+
+        LruWindowContextEvictionPolicy evictionPolicy = new LruWindowContextEvictionPolicy();
+        evictionPolicy.windowContextAccessed(windowContext1);
+        evictionPolicy.windowContextAccessed(windowContext2);
+        evictionPolicy.windowContextAccessed(windowContext1);
+
+        Assert.assertSame(evictionPolicy.getWindowContextToEvict(), windowContext2);
+
+        //an instance which isn't indexed mustn't change the access order
+        evictionPolicy.windowContextRemoved(
+                (EditableWindowContext) createWindowContextManager(128).getWindowContext("w1"));
+        Assert.assertSame(evictionPolicy.getWindowContextToEvict(), windowContext2);
+        Assert.assertEquals(evictionPolicy.getWindowContextsInEvictionOrder().length, 2);
+
+        evictionPolicy.windowContextRemoved(windowContext2);
+        Assert.assertSame(evictionPolicy.getWindowContextToEvict(), windowContext1);
+    }
+
+    @Test
+    public void testLfuEvictionOrder() throws Exception
+    {
+        DefaultWindowContextManager windowContextManager = createWindowContextManager(128);
+        EditableWindowContext windowContext1 = (EditableWindowContext) windowContextManager.getWindowContext("w1");
+        EditableWindowContext windowContext2 = (EditableWindowContext) windowContextManager.getWindowContext("w2");
+        EditableWindowContext windowContext3 = (EditableWindowContext) windowContextManager.getWindowContext("w3");
+
+        LfuWindowContextEvictionPolicy evictionPolicy = new LfuWindowContextEvictionPolicy();
+        evictionPolicy.windowContextAccessed(windowContext1);
+        evictionPolicy.windowContextAccessed(windowContext1);
+        evictionPolicy.windowContextAccessed(windowContext2);
+        evictionPolicy.windowContextAccessed(windowContext3);
+
+        //same frequency -> the least recently used one
+        Assert.assertSame(evictionPolicy.getWindowContextToEvict(), windowContext2);
+
+        evictionPolicy.windowContextAccessed(windowContext2);
+        evictionPolicy.windowContextAccessed(windowContext2);
+        Assert.assertSame(evictionPolicy.getWindowContextToEvict(), windowContext3);
+
+        evictionPolicy.windowContextRemoved(windowContext3);
+        Assert.assertSame(evictionPolicy.getWindowContextToEvict(), windowContext1);
+        Assert.assertEquals(evictionPolicy.getWindowContextsInEvictionOrder().length, 2);
+    }
+
+    @Test
+    public void testConcurrentAccessesAreAppliedBeforeTheEviction() throws Exception
+    {
+        DefaultWindowContextManager windowContextManager = createWindowContextManager(128);
+        final EditableWindowContext[] windowContexts = new EditableWindowContext[THREAD_COUNT];
+
+        for (int i = 0; i < windowContexts.length; i++)
+        {
+            windowContexts[i] = (EditableWindowContext) windowContextManager.getWindowContext("w" + i);
+        }
+
+        final LruWindowContextEvictionPolicy evictionPolicy = new LruWindowContextEvictionPolicy();
+        final AtomicInteger threadIndex = new AtomicInteger();
+
+        ConcurrentTestUtils.runConcurrently(THREAD_COUNT, new Callable<Object>()
+        {
+            public Object call() throws Exception
+            {
+                EditableWindowContext windowContext = windowContexts[threadIndex.getAndIncrement()];
+
+                for (int i = 0; i < 1000; i++)
+                {
+                    evictionPolicy.windowContextAccessed(windowContext);
+                }
+                return null;
+            }
+        });
+
+        //every window context is indexed once - independent of buffered or already applied accesses
+        Assert.assertEquals(evictionPolicy.getWindowContextsInEvictionOrder().length, THREAD_COUNT);
+
+        evictionPolicy.windowContextAccessed(windowContexts[0]);
+        Assert.assertNotSame(evictionPolicy.getWindowContextToEvict(), windowContexts[0]);
+        Assert.assertSame(evictionPolicy.getWindowContextsInEvictionOrder()[THREAD_COUNT - 1], windowContexts[0]);
+    }
+
+    private DefaultWindowContextManager createWindowContextManager(int maxWindowContextCount)
+    {
+        return new DefaultWindowContextManager(
+                new TestWindowContextConfig(maxWindowContextCount), ProjectStage.UnitTest);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.RequestCache;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class DefaultWindowHandlerTest
+{
+    private TestWindowHandler windowHandler;
+
+    @BeforeMethod
+    public void init()
+    {
+        this.windowHandler = new TestWindowHandler();
+    }
+
+    @AfterMethod
+    public void release()
+    {
+        RequestCache.releaseCache();
+    }
+
+    @Test
+    public void testUrlParameterIsCreatedOncePerRequest()
+    {
+        Assert.assertEquals(this.windowHandler.encodeURL("/page1.faces"), "/page1.faces?windowId=w1");
+        Assert.assertEquals(this.windowHandler.encodeURL("/page2.faces?p=1"), "/page2.faces?p=1&windowId=w1");
+        Assert.assertEquals(this.windowHandler.windowIdLookups, 1);
+    }
+
+    @Test
+    public void testWindowSwitchResetsTheCachedUrlParameter()
+    {
+        Assert.assertEquals(this.windowHandler.encodeURL("/page.faces"), "/page.faces?windowId=w1");
+
+        //e.g. the activation of an other window context
+        this.windowHandler.windowId = "w2";
+        RequestCache.resetCache();
+
+        Assert.assertEquals(this.windowHandler.encodeURL("/page.faces"), "/page.faces?windowId=w2");
+        Assert.assertEquals(this.windowHandler.windowIdLookups, 2);
+    }
+
+    @Test
+    public void testExistingWindowIdIsKept()
+    {
+        Assert.assertEquals(this.windowHandler.encodeURL("/page.faces?windowId=w0"), "/page.faces?windowId=w0");
+    }
+
+    private static class TestWindowHandler extends DefaultWindowHandler
+    {
+        private static final long serialVersionUID = 3268012539720641593L;
+
+        private String windowId = "w1";
+
+        private int windowIdLookups;
+
+        private TestWindowHandler()
+        {
+            super(true);
+        }
+
+        @Override
+        protected String getCurrentWindowId()
+        {
+            this.windowIdLookups++;
+            return this.windowId;
+        }
+    }
+}
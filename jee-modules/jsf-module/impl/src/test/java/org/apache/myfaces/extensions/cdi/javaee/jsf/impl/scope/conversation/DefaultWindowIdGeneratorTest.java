@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.test.util.ConcurrentTestUtils;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.test.util.TestExternalContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.faces.context.ExternalContext;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class DefaultWindowIdGeneratorTest
+{
+    private static final int THREAD_COUNT = 64;
+
+    @Test
+    public void testWindowIdLength()
+    {
+        ExternalContext externalContext = new TestExternalContext();
+
+        for (int length = 1; length <= 25; length++)
+        {
+            String windowId = new DefaultWindowIdGenerator(length).createWindowId(externalContext);
+
+            Assert.assertEquals(windowId.length(), length);
+            Assert.assertTrue(windowId.matches("[0-9a-zA-Z]+"));
+        }
+    }
+
+    @Test
+    public void testCandidatesOfASessionRarelyCollide()
+    {
+        ExternalContext externalContext = new TestExternalContext();
+        DefaultWindowIdGenerator windowIdGenerator = new DefaultWindowIdGenerator(8);
+        Set<String> windowIds = new HashSet<String>();
+
+        for (int i = 0; i < 1000; i++)
+        {
+            windowIds.add(windowIdGenerator.createWindowId(externalContext));
+        }
+
+        Assert.assertEquals(windowIds.size(), 1000);
+        Assert.assertTrue(externalContext.getSessionMap().isEmpty());
+    }
+
+    @Test
+    public void testConcurrentWindowIdCreation() throws Exception
+    {
+        final DefaultWindowIdGenerator windowIdGenerator = new DefaultWindowIdGenerator(3);
+
+        //every thread simulates the requests of a different session - the generator itself is shared
+        final ThreadLocal<ExternalContext> externalContext = new ThreadLocal<ExternalContext>()
+        {
+            @Override
+            protected ExternalContext initialValue()
+            {
+                return new TestExternalContext();
+            }
+        };
+
+        long operationsPerSecond = ConcurrentTestUtils.benchmark("window-id creation", THREAD_COUNT, 10000,
+                new Runnable()
+                {
+                    public void run()
+                    {
+                        windowIdGenerator.createWindowId(externalContext.get());
+                    }
+                });
+
+        Assert.assertTrue(operationsPerSecond > 0);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.ConversationScoped;
+import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.WindowScoped;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.ConfigParameter;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import javax.enterprise.inject.spi.AfterDeploymentValidation;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.ProcessBean;
+import javax.inject.Qualifier;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class GroupedConversationContextExtensionTest
+{
+    @AfterMethod
+    public void reset()
+    {
+        System.getProperties().remove(ConfigParameter.REJECT_INVALID_CONVERSATION_SCOPED_BEANS);
+        ConversationKeyCache.reset();
+    }
+
+    @Test
+    public void testInvalidBeanDefinitionIsLoggedPerDefault()
+    {
+        List<Throwable> deploymentProblems = deploy(QualifiedWindowScopedBean.class);
+
+        Assert.assertTrue(deploymentProblems.isEmpty());
+    }
+
+    @Test
+    public void testInvalidBeanDefinitionIsRejectedIfConfigured()
+    {
+        System.setProperty(ConfigParameter.REJECT_INVALID_CONVERSATION_SCOPED_BEANS, "true");
+
+        List<Throwable> deploymentProblems = deploy(QualifiedWindowScopedBean.class);
+
+        Assert.assertEquals(deploymentProblems.size(), 1);
+        Assert.assertTrue(deploymentProblems.get(0).getMessage().contains(QualifiedWindowScopedBean.class.getName()));
+    }
+
+    private List<Throwable> deploy(Class<?> beanClass)
+    {
+        GroupedConversationContextExtension extension = new GroupedConversationContextExtension();
+        extension.validateConversationScopedBean(createProcessBeanEvent(createBean(beanClass)));
+
+        List<Throwable> deploymentProblems = new ArrayList<Throwable>();
+        extension.reportInvalidBeanDefinitions(createAfterDeploymentValidationEvent(deploymentProblems));
+        return deploymentProblems;
+    }
+
+    private Bean<?> createBean(final Class<?> beanClass)
+    {
+        return (Bean<?>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{Bean.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("getBeanClass".equals(method.getName()))
+                        {
+                            return beanClass;
+                        }
+                        if ("getScope".equals(method.getName()))
+                        {
+                            return ConversationScoped.class;
+                        }
+                        if ("getStereotypes".equals(method.getName()))
+                        {
+                            return Collections.singleton(WindowScoped.class);
+                        }
+                        if ("getQualifiers".equals(method.getName()))
+                        {
+                            return Collections.<Annotation>singleton(beanClass.getAnnotation(TestQualifier.class));
+                        }
+                        if ("hashCode".equals(method.getName()))
+                        {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("equals".equals(method.getName()))
+                        {
+                            return proxy == args[0];
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private ProcessBean createProcessBeanEvent(final Bean<?> bean)
+    {
+        return (ProcessBean) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ProcessBean.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("getBean".equals(method.getName()))
+                        {
+                            return bean;
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private AfterDeploymentValidation createAfterDeploymentValidationEvent(final List<Throwable> deploymentProblems)
+    {
+        return (AfterDeploymentValidation) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{AfterDeploymentValidation.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("addDeploymentProblem".equals(method.getName()))
+                        {
+                            deploymentProblems.add((Throwable) args[0]);
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    @Qualifier
+    @Retention(RetentionPolicy.RUNTIME)
+    private static @interface TestQualifier
+    {
+    }
+
+    @TestQualifier
+    private static class QualifiedWindowScopedBean
+    {
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ConversationUtils;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.RequestCache;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.test.util.TestResponseWriter;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.faces.component.UIComponent;
+import javax.faces.component.UIForm;
+import javax.faces.component.UIOutput;
+import javax.faces.context.ResponseWriter;
+import java.io.IOException;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class InterceptedResponseWriterTest
+{
+    private static final String HIDDEN_FIELD = "<input type=\"hidden\" name=\"windowId\" value=\"w&quot;1\" />";
+
+    private TestResponseWriter wrappedResponseWriter;
+
+    @BeforeMethod
+    public void init()
+    {
+        //the window-id of the current request - the value has to be escaped
+        RequestCache.setWindowIdHiddenField(ConversationUtils.createWindowIdHiddenField("w\"1"));
+
+        this.wrappedResponseWriter = new TestResponseWriter();
+    }
+
+    @AfterMethod
+    public void release()
+    {
+        RequestCache.releaseCache();
+    }
+
+    @Test
+    public void testWindowIdIsWrittenIntoForms() throws IOException
+    {
+        ResponseWriter responseWriter = new InterceptedResponseWriter(this.wrappedResponseWriter, true);
+
+        renderForm(responseWriter, new UIForm());
+        renderForm(responseWriter, new UIForm());
+
+        Assert.assertEquals(this.wrappedResponseWriter.getOutput(),
+                "<form>" + HIDDEN_FIELD + "</form><form>" + HIDDEN_FIELD + "</form>");
+    }
+
+    @Test
+    public void testFormElementsOfOtherComponentsAreIgnored() throws IOException
+    {
+        ResponseWriter responseWriter = new InterceptedResponseWriter(this.wrappedResponseWriter, true);
+
+        //e.g. plain markup of a template
+        renderForm(responseWriter, new UIOutput());
+        renderForm(responseWriter, null);
+
+        Assert.assertEquals(this.wrappedResponseWriter.getOutput(), "<form></form><form></form>");
+    }
+
+    @Test
+    public void testWindowIdIsOnlyWrittenInStreamingMode() throws IOException
+    {
+        ResponseWriter responseWriter = new InterceptedResponseWriter(this.wrappedResponseWriter, false);
+
+        renderForm(responseWriter, new UIForm());
+
+        Assert.assertEquals(this.wrappedResponseWriter.getOutput(), "<form></form>");
+    }
+
+    private void renderForm(ResponseWriter responseWriter, UIComponent component) throws IOException
+    {
+        responseWriter.startElement("form", component);
+        responseWriter.endElement("form");
+    }
+}
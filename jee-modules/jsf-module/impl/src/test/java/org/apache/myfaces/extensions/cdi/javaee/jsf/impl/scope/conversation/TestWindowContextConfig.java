@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.ConversationEvictionPolicy;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.ConversationFactory;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.JsfAwareWindowContextConfig;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowContextEvictionPolicy;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowContextFactory;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowContextManagerFactory;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowContextQuotaHandler;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowHandler;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.spi.WindowIdGenerator;
+
+/**
+ * config with the default values which doesn't require a faces-context
+ *
+ * @author Gerhard Petracek
+ */
+class TestWindowContextConfig extends JsfAwareWindowContextConfig
+{
+    private static final long serialVersionUID = -6380414519683620524L;
+
+    private final int maxWindowContextCount;
+
+    TestWindowContextConfig(int maxWindowContextCount)
+    {
+        this.maxWindowContextCount = maxWindowContextCount;
+    }
+
+    public WindowHandler getWindowHandler()
+    {
+        return null;
+    }
+
+    public ConversationFactory getConversationFactory()
+    {
+        return new JsfAwareConversationFactory();
+    }
+
+    public WindowContextManagerFactory getWindowContextManagerFactory()
+    {
+        return null;
+    }
+
+    public WindowContextFactory getWindowContextFactory()
+    {
+        return null;
+    }
+
+    public WindowContextQuotaHandler getWindowContextQuotaHandler()
+    {
+        return new DefaultWindowContextQuotaHandler(this.maxWindowContextCount);
+    }
+
+    public WindowIdGenerator getWindowIdGenerator()
+    {
+        return new DefaultWindowIdGenerator(getWindowIdLength());
+    }
+
+    public WindowContextEvictionPolicy createWindowContextEvictionPolicy()
+    {
+        return new LruWindowContextEvictionPolicy();
+    }
+
+    public boolean isInitialRedirectDisable()
+    {
+        return true;
+    }
+
+    public int getBackgroundCleanupIntervalInSeconds()
+    {
+        return 0;
+    }
+
+    public int getMaxConversationStorageSizePerSessionInKB()
+    {
+        return 0;
+    }
+
+    public int getMaxConversationStorageSizeInKB()
+    {
+        return 0;
+    }
+
+    public ConversationEvictionPolicy getConversationEvictionPolicy()
+    {
+        return ConversationEvictionPolicy.LRU;
+    }
+
+    public boolean isWindowIdStreamingEnabled()
+    {
+        return false;
+    }
+
+    public int getWindowIdLength()
+    {
+        return 3;
+    }
+
+    public int getConversationPassivationIdleTimeInMinutes()
+    {
+        return 0;
+    }
+
+    public boolean isUrlParameterSupported()
+    {
+        return true;
+    }
+
+    public boolean isUnknownWindowIdsAllowed()
+    {
+        return true;
+    }
+
+    public boolean isAddWindowIdToActionUrlsEnabled()
+    {
+        return true;
+    }
+
+    public int getWindowContextTimeoutInMinutes()
+    {
+        return 60;
+    }
+
+    public int getMaxWindowContextCount()
+    {
+        return this.maxWindowContextCount;
+    }
+
+    public int getConversationTimeoutInMinutes()
+    {
+        return 30;
+    }
+
+    public boolean isScopeBeanEventEnable()
+    {
+        return false;
+    }
+
+    public boolean isBeanAccessEventEnable()
+    {
+        return false;
+    }
+
+    public boolean isUnscopeBeanEventEnable()
+    {
+        return false;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class TimeoutExpirationEvaluatorTest
+{
+    @Test
+    public void testSerializationKeepsTimeoutAndIdleTime() throws Exception
+    {
+        TimeoutExpirationEvaluator expirationEvaluator = new TimeoutConversationExpirationEvaluator(10);
+        expirationEvaluator.touch();
+
+        TimeoutExpirationEvaluator result = serializeAndDeserialize(expirationEvaluator);
+
+        Assert.assertFalse(result.isExpired());
+
+        long remainingTimeInMinutes = (result.getExpirationTime() - System.nanoTime()) / (60L * 1000 * 1000 * 1000);
+        Assert.assertEquals(remainingTimeInMinutes, 9L);
+    }
+
+    @Test
+    public void testSerializationKeepsExpiredState() throws Exception
+    {
+        TimeoutConversationExpirationEvaluator expirationEvaluator = new TimeoutConversationExpirationEvaluator(10);
+        expirationEvaluator.touch();
+        expirationEvaluator.expire();
+
+        Assert.assertTrue(serializeAndDeserialize(expirationEvaluator).isExpired());
+    }
+
+    private TimeoutExpirationEvaluator serializeAndDeserialize(TimeoutExpirationEvaluator expirationEvaluator)
+            throws Exception
+    {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
+        objectOutputStream.writeObject(expirationEvaluator);
+        objectOutputStream.close();
+
+        ObjectInputStream objectInputStream =
+                new ObjectInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+        return (TimeoutExpirationEvaluator) objectInputStream.readObject();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.test.util.ConcurrentTestUtils;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.test.util.TestExternalContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.faces.context.ExternalContext;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class ExistingWindowIdSetTest
+{
+    private static final int THREAD_COUNT = 64;
+
+    @Test
+    public void testSetIsCreatedOncePerSession()
+    {
+        ExternalContext externalContext = new TestExternalContext();
+        Map<String, Object> sessionMap = externalContext.getSessionMap();
+
+        ConversationUtils.createExistingWindowIdSet(externalContext, 16);
+        Object existingWindowIdSet = sessionMap.get(ConversationUtils.EXISTING_WINDOW_ID_SET_KEY);
+        ConversationUtils.createExistingWindowIdSet(externalContext, 16);
+
+        Assert.assertSame(sessionMap.get(ConversationUtils.EXISTING_WINDOW_ID_SET_KEY), existingWindowIdSet);
+    }
+
+    @Test
+    public void testWindowIdsOfPreviousVersionsAreMigrated()
+    {
+        ExternalContext externalContext = new TestExternalContext();
+        Map<String, Object> sessionMap = externalContext.getSessionMap();
+        sessionMap.put(ConversationUtils.EXISTING_WINDOW_ID_SET_KEY, new HashSet<String>(Arrays.asList("a1b", "c2d")));
+
+        ConversationUtils.createExistingWindowIdSet(externalContext, 16);
+        Set<String> existingWindowIdSet = ConversationUtils.getExistingWindowIdSet(externalContext);
+
+        Assert.assertEquals(existingWindowIdSet.size(), 2);
+        Assert.assertTrue(existingWindowIdSet.contains("a1b"));
+        Assert.assertTrue(existingWindowIdSet.contains("c2d"));
+        Assert.assertTrue(sessionMap.get(ConversationUtils.EXISTING_WINDOW_ID_SET_KEY) instanceof ExistingWindowIdSet);
+        Assert.assertTrue(ConversationUtils.cacheWindowId(externalContext, "a1b", false));
+    }
+
+    @Test
+    public void testWindowIdsStayUntilTheyGetRemoved()
+    {
+        ExternalContext externalContext = new TestExternalContext();
+        ConversationUtils.createExistingWindowIdSet(externalContext, 1000);
+
+        for (int i = 0; i < 1000; i++)
+        {
+            ConversationUtils.storeCreatedWindowContextId(externalContext, "w" + i);
+        }
+
+        //no time-based eviction - the ids get removed together with the window contexts
+        for (int i = 0; i < 1000; i++)
+        {
+            Assert.assertTrue(ConversationUtils.cacheWindowId(externalContext, "w" + i, false));
+        }
+
+        Assert.assertTrue(ConversationUtils.removeExistingWindowId(externalContext, "w1"));
+        Assert.assertFalse(ConversationUtils.cacheWindowId(externalContext, "w1", false));
+        Assert.assertEquals(ConversationUtils.getExistingWindowIdSet(externalContext).size(), 999);
+    }
+
+    @Test
+    public void testOldestWindowIdIsEvicted()
+    {
+        ExternalContext externalContext = new TestExternalContext();
+        ConversationUtils.createExistingWindowIdSet(externalContext, 4);
+
+        //e.g. a quota handler which allows additional window contexts
+        for (int i = 0; i < 6; i++)
+        {
+            ConversationUtils.storeCreatedWindowContextId(externalContext, "w" + i);
+        }
+
+        Set<String> existingWindowIdSet = ConversationUtils.getExistingWindowIdSet(externalContext);
+
+        Assert.assertEquals(existingWindowIdSet, new HashSet<String>(Arrays.asList("w2", "w3", "w4", "w5")));
+    }
+
+    @Test
+    public void testWindowIdsWithoutWindowContextAreRemovedFirst()
+    {
+        ExternalContext externalContext = new TestExternalContext();
+        ConversationUtils.createExistingWindowIdSet(externalContext, 4);
+
+        for (int i = 0; i < 4; i++)
+        {
+            ConversationUtils.storeCreatedWindowContextId(externalContext, "w" + i);
+        }
+
+        //the window contexts w1 and w3 were removed without a request which removed their ids
+        ConversationUtils.storeCreatedWindowContextId(
+                externalContext, "w4", new HashSet<String>(Arrays.asList("w0", "w2", "w4")));
+
+        Set<String> existingWindowIdSet = ConversationUtils.getExistingWindowIdSet(externalContext);
+
+        Assert.assertEquals(existingWindowIdSet, new HashSet<String>(Arrays.asList("w0", "w2", "w4")));
+    }
+
+    @Test
+    public void testConcurrentRequestsOfASession() throws Exception
+    {
+        final ExternalContext externalContext = new TestExternalContext();
+        ConversationUtils.createExistingWindowIdSet(externalContext, THREAD_COUNT);
+
+        ConcurrentTestUtils.runConcurrently(THREAD_COUNT, new Callable<Object>()
+        {
+            public Object call() throws Exception
+            {
+                String windowId = Thread.currentThread().getName();
+
+                for (int i = 0; i < 100; i++)
+                {
+                    ConversationUtils.storeCreatedWindowContextId(externalContext, windowId + "_" + i);
+                    ConversationUtils.removeExistingWindowId(externalContext, windowId + "_" + i);
+                }
+                ConversationUtils.storeCreatedWindowContextId(externalContext, windowId);
+                return null;
+            }
+        });
+
+        Assert.assertEquals(ConversationUtils.getExistingWindowIdSet(externalContext).size(), THREAD_COUNT);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util;
+
+import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.WindowContext;
+import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.WindowContextManager;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.test.util.ConcurrentTestUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class RequestStateCarrierTest
+{
+    private static final int THREAD_COUNT = 16;
+
+    @Test
+    public void testLeftoverStateDoesntLeakToOtherRequests() throws Exception
+    {
+        final WindowContext windowContext = createStub(WindowContext.class);
+
+        List<Boolean> results = ConcurrentTestUtils.runConcurrently(THREAD_COUNT, new Callable<Boolean>()
+        {
+            public Boolean call() throws Exception
+            {
+                //e.g. a previous request of a pooled thread which failed before the state was released
+                RequestCache.setCurrentWindowContext(windowContext);
+
+                try
+                {
+                    return RequestCache.isRequestStatePropagated();
+                }
+                finally
+                {
+                    RequestCache.releaseCache();
+                }
+            }
+        });
+
+        for (Boolean result : results)
+        {
+            Assert.assertFalse(result);
+        }
+    }
+
+    @Test
+    public void testPropagatedStateIsOnlyVisibleDuringTheExecution() throws Exception
+    {
+        final WindowContext windowContext = createStub(WindowContext.class);
+
+        //state of the current request
+        RequestState requestState = new RequestState();
+        requestState.setWindowContextManager(createStub(WindowContextManager.class));
+        requestState.setCurrentWindowContext(windowContext);
+        RequestCache.replaceRequestState(requestState);
+
+        final RequestStateCarrier requestStateCarrier;
+        try
+        {
+            requestStateCarrier = RequestStateCarrier.capture();
+            Assert.assertFalse(RequestCache.isRequestStatePropagated());
+        }
+        finally
+        {
+            RequestCache.releaseCache();
+        }
+
+        List<Boolean> results = ConcurrentTestUtils.runConcurrently(THREAD_COUNT, new Callable<Boolean>()
+        {
+            public Boolean call() throws Exception
+            {
+                final boolean[] propagated = new boolean[1];
+
+                requestStateCarrier.execute(new Runnable()
+                {
+                    public void run()
+                    {
+                        propagated[0] = RequestCache.isRequestStatePropagated() &&
+                                RequestCache.getCurrentWindowContext() == windowContext;
+                    }
+                });
+
+                //the state of the task mustn't stay on the (pooled) thread
+                return propagated[0] && !RequestCache.isRequestStatePropagated() &&
+                        RequestCache.replaceRequestState(null) == null;
+            }
+        });
+
+        for (Boolean result : results)
+        {
+            Assert.assertTrue(result);
+        }
+    }
+
+    private <T> T createStub(Class<T> type)
+    {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{type},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        return null;
+                    }
+                }));
+    }
+}
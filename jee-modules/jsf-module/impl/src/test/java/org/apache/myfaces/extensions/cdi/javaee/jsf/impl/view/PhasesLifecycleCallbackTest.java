@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.AfterPhase;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.BeforePhase;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.PhaseId;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.faces.event.PhaseEvent;
+import java.util.List;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class PhasesLifecycleCallbackTest
+{
+    @Test
+    public void testCallbacksAreInvokedWithTheirArity() throws Exception
+    {
+        PageBeanDefinitionEntry pageBeanDefinitionEntry =
+                new PageBeanDefinitionEntry("callbackBean", CallbackBean.class);
+
+        List<PhasesLifecycleCallback> beforeRenderResponseCallbacks = pageBeanDefinitionEntry
+                .getPhasesLifecycleCallback(javax.faces.event.PhaseId.RENDER_RESPONSE).getBeforePhaseCallbacks();
+        List<PhasesLifecycleCallback> afterInvokeApplicationCallbacks = pageBeanDefinitionEntry
+                .getPhasesLifecycleCallback(javax.faces.event.PhaseId.INVOKE_APPLICATION).getAfterPhaseCallbacks();
+
+        Assert.assertEquals(beforeRenderResponseCallbacks.size(), 1);
+        Assert.assertEquals(afterInvokeApplicationCallbacks.size(), 1);
+
+        CallbackBean callbackBean = new CallbackBean();
+        beforeRenderResponseCallbacks.get(0).invoke(callbackBean, null);
+        afterInvokeApplicationCallbacks.get(0).invoke(callbackBean, null);
+
+        Assert.assertEquals(callbackBean.beforeRenderResponseCount, 1);
+        Assert.assertEquals(callbackBean.afterInvokeApplicationCount, 1);
+    }
+
+    @Test
+    public void testPhasesWithoutCallbacksAreNotStored()
+    {
+        PageBeanDefinitionEntry pageBeanDefinitionEntry =
+                new PageBeanDefinitionEntry("callbackBean", CallbackBean.class);
+
+        Assert.assertNull(
+                pageBeanDefinitionEntry.getPhasesLifecycleCallback(javax.faces.event.PhaseId.PROCESS_VALIDATIONS));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidSignatureIsRejectedDuringTheBootstrapping()
+    {
+        new PageBeanDefinitionEntry("invalidCallbackBean", InvalidCallbackBean.class);
+    }
+
+    static class CallbackBean
+    {
+        private int beforeRenderResponseCount;
+
+        private int afterInvokeApplicationCount;
+
+        @BeforePhase(PhaseId.RENDER_RESPONSE)
+        private void beforeRenderResponse()
+        {
+            this.beforeRenderResponseCount++;
+        }
+
+        @AfterPhase(PhaseId.INVOKE_APPLICATION)
+        protected void afterInvokeApplication(PhaseEvent phaseEvent)
+        {
+            this.afterInvokeApplicationCount++;
+        }
+    }
+
+    static class InvalidCallbackBean
+    {
+        @BeforePhase(PhaseId.RENDER_RESPONSE)
+        public void beforeRenderResponse(String invalidParameter)
+        {
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view;
+
+import org.apache.myfaces.extensions.cdi.core.api.view.definition.ViewDefinition;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.view.definition.NavigationMode;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class ViewDefinitionCacheTest
+{
+    private final ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
+
+    @AfterMethod
+    public void reset()
+    {
+        ViewDefinitionCache.reset();
+        Thread.currentThread().setContextClassLoader(this.originalClassLoader);
+    }
+
+    @Test
+    public void testViewDefinitionsAreIsolatedPerClassLoader()
+    {
+        ViewDefinitionCache.publish(createMapping("/first.xhtml", FirstPage.class));
+
+        ClassLoader otherApplication = new URLClassLoader(new URL[0], this.originalClassLoader);
+        Thread.currentThread().setContextClassLoader(otherApplication);
+
+        try
+        {
+            Assert.assertNull(ViewDefinitionCache.getViewDefinition("/first.xhtml"));
+
+            ViewDefinitionCache.publish(createMapping("/second.xhtml", SecondPage.class));
+
+            Assert.assertEquals(ViewDefinitionCache.getViewDefinition(SecondPage.class).getViewId(), "/second.xhtml");
+            Assert.assertNull(ViewDefinitionCache.getViewDefinition(FirstPage.class));
+
+            //e.g. an undeployment of the other application
+            ViewDefinitionCache.reset();
+            Assert.assertNull(ViewDefinitionCache.getViewDefinition("/second.xhtml"));
+        }
+        finally
+        {
+            Thread.currentThread().setContextClassLoader(this.originalClassLoader);
+        }
+
+        Assert.assertEquals(ViewDefinitionCache.getViewDefinition("/first.xhtml").getViewDefinitionClass(),
+                FirstPage.class);
+        Assert.assertNull(ViewDefinitionCache.getViewDefinition("/second.xhtml"));
+    }
+
+    @Test
+    public void testPublishedSnapshotIsImmutable()
+    {
+        Map<String, ViewDefinitionEntry> mapping = createMapping("/first.xhtml", FirstPage.class);
+        ViewDefinitionCache.publish(mapping);
+
+        mapping.clear();
+
+        Assert.assertNotNull(ViewDefinitionCache.getViewDefinition("/first.xhtml"));
+        Assert.assertNotNull(ViewDefinitionCache.getViewDefinition(FirstPage.class));
+    }
+
+    @Test
+    public void testResetRemovesTheSnapshot()
+    {
+        ViewDefinitionCache.publish(createMapping("/first.xhtml", FirstPage.class));
+        ViewDefinitionCache.reset();
+
+        Assert.assertNull(ViewDefinitionCache.getViewDefinition("/first.xhtml"));
+        Assert.assertNull(ViewDefinitionCache.getViewDefinition(FirstPage.class));
+    }
+
+    private Map<String, ViewDefinitionEntry> createMapping(
+            String viewId, Class<? extends ViewDefinition> viewDefinitionClass)
+    {
+        Map<String, ViewDefinitionEntry> result = new HashMap<String, ViewDefinitionEntry>();
+        result.put(viewId, new ViewDefinitionEntry(viewId, viewDefinitionClass, NavigationMode.FORWARD));
+        return result;
+    }
+
+    static class FirstPage implements ViewDefinition
+    {
+    }
+
+    static class SecondPage implements ViewDefinition
+    {
+    }
+}
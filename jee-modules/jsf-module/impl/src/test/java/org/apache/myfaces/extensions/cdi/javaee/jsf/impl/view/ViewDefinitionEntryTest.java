@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view;
+
+import org.apache.myfaces.extensions.cdi.core.api.view.definition.ViewDefinition;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.AfterPhase;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.BeforePhase;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.listener.phase.PhaseId;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.view.definition.NavigationMode;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.view.definition.PageBean;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class ViewDefinitionEntryTest
+{
+    @Test
+    public void testCallbacksAreIndexedByPhaseAndDirection()
+    {
+        ViewDefinitionEntry viewDefinitionEntry =
+                new ViewDefinitionEntry("/page.xhtml", TestPage.class, NavigationMode.FORWARD);
+
+        PageBeanCallbacks[] beforeRenderResponse = viewDefinitionEntry
+                .getPhasesLifecycleCallbacks(javax.faces.event.PhaseId.RENDER_RESPONSE, true);
+
+        Assert.assertEquals(beforeRenderResponse.length, 2);
+        Assert.assertEquals(beforeRenderResponse[0].getPageBeanDefinitionEntry().getBeanClass(),
+                FirstPageBean.class);
+        Assert.assertEquals(beforeRenderResponse[1].getPageBeanDefinitionEntry().getBeanClass(),
+                SecondPageBean.class);
+
+        PageBeanCallbacks[] afterRenderResponse = viewDefinitionEntry
+                .getPhasesLifecycleCallbacks(javax.faces.event.PhaseId.RENDER_RESPONSE, false);
+
+        Assert.assertEquals(afterRenderResponse.length, 0);
+
+        PageBeanCallbacks[] afterInvokeApplication = viewDefinitionEntry
+                .getPhasesLifecycleCallbacks(javax.faces.event.PhaseId.INVOKE_APPLICATION, false);
+
+        Assert.assertEquals(afterInvokeApplication.length, 1);
+        Assert.assertEquals(afterInvokeApplication[0].getPageBeanDefinitionEntry().getBeanClass(),
+                SecondPageBean.class);
+        Assert.assertEquals(afterInvokeApplication[0].getCallbacks().size(), 1);
+
+        for (Object phaseId : javax.faces.event.PhaseId.VALUES)
+        {
+            if (!javax.faces.event.PhaseId.RENDER_RESPONSE.equals(phaseId))
+            {
+                Assert.assertEquals(viewDefinitionEntry
+                        .getPhasesLifecycleCallbacks((javax.faces.event.PhaseId) phaseId, true).length, 0);
+            }
+        }
+    }
+
+    @Test
+    public void testViewWithoutPageBeansHasNoCallbacks()
+    {
+        ViewDefinitionEntry viewDefinitionEntry =
+                new ViewDefinitionEntry("/plain.xhtml", PlainPage.class, NavigationMode.FORWARD);
+
+        for (Object phaseId : javax.faces.event.PhaseId.VALUES)
+        {
+            Assert.assertEquals(viewDefinitionEntry
+                    .getPhasesLifecycleCallbacks((javax.faces.event.PhaseId) phaseId, true).length, 0);
+            Assert.assertEquals(viewDefinitionEntry
+                    .getPhasesLifecycleCallbacks((javax.faces.event.PhaseId) phaseId, false).length, 0);
+        }
+    }
+
+    @PageBean.List({@PageBean(FirstPageBean.class), @PageBean(SecondPageBean.class)})
+    static class TestPage implements ViewDefinition
+    {
+    }
+
+    static class PlainPage implements ViewDefinition
+    {
+    }
+
+    static class FirstPageBean
+    {
+        @BeforePhase(PhaseId.RENDER_RESPONSE)
+        protected void beforeRenderResponse()
+        {
+        }
+    }
+
+    static class SecondPageBean
+    {
+        @BeforePhase(PhaseId.RENDER_RESPONSE)
+        protected void beforeRenderResponse()
+        {
+        }
+
+        @AfterPhase(PhaseId.INVOKE_APPLICATION)
+        protected void afterInvokeApplication()
+        {
+        }
+    }
+}
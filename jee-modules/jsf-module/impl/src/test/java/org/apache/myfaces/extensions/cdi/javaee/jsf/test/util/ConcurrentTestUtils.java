@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.test.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * executes a task with several threads at the same time and measures the throughput
+ *
+ * @author Gerhard Petracek
+ */
+public final class ConcurrentTestUtils
+{
+    private static final Logger logger = Logger.getLogger(ConcurrentTestUtils.class.getName());
+
+    private ConcurrentTestUtils()
+    {
+    }
+
+    /**
+     * @param threadCount number of parallel threads
+     * @param task task which gets executed by every thread
+     * @return the results of all threads
+     * @throws Exception the first exception of a thread
+     */
+    public static <T> List<T> runConcurrently(int threadCount, final Callable<T> task) throws Exception
+    {
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        final CountDownLatch startSignal = new CountDownLatch(1);
+
+        try
+        {
+            List<Future<T>> futures = new ArrayList<Future<T>>(threadCount);
+
+            for (int i = 0; i < threadCount; i++)
+            {
+                futures.add(executorService.submit(new Callable<T>()
+                {
+                    public T call() throws Exception
+                    {
+                        //all threads start at the same time to maximize the contention
+                        startSignal.await();
+                        return task.call();
+                    }
+                }));
+            }
+
+            startSignal.countDown();
+
+            List<T> results = new ArrayList<T>(threadCount);
+            for (Future<T> future : futures)
+            {
+                results.add(future.get());
+            }
+            return results;
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * executes the given operation with several threads and logs the throughput
+     *
+     * @param name name of the benchmark
+     * @param threadCount number of parallel threads
+     * @param operationsPerThread number of invocations per thread
+     * @param operation benchmarked operation
+     * @return operations per second
+     * @throws Exception the first exception of a thread
+     */
+    public static long benchmark(String name,
+                                 int threadCount,
+                                 final int operationsPerThread,
+                                 final Runnable operation) throws Exception
+    {
+        long start = System.nanoTime();
+
+        runConcurrently(threadCount, new Callable<Object>()
+        {
+            public Object call() throws Exception
+            {
+                for (int i = 0; i < operationsPerThread; i++)
+                {
+                    operation.run();
+                }
+                return null;
+            }
+        });
+
+        long durationInNanos = Math.max(1, System.nanoTime() - start);
+        long operationsPerSecond = threadCount * (long) operationsPerThread * 1000L * 1000L * 1000L / durationInNanos;
+
+        logger.info(name + ": " + threadCount + " threads - " + operationsPerSecond + " ops/s");
+        return operationsPerSecond;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.test.util;
+
+import org.apache.myfaces.extensions.cdi.javaee.jsf.impl.scope.conversation.RedirectedConversationAwareExternalContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * external context with plain maps which doesn't require a servlet environment
+ *
+ * @author Gerhard Petracek
+ */
+public class TestExternalContext extends RedirectedConversationAwareExternalContext
+{
+    private final Map<String, Object> sessionMap;
+
+    private final Map<String, Object> requestMap = new HashMap<String, Object>();
+
+    private final Map<String, String> requestParameterMap = new HashMap<String, String>();
+
+    public TestExternalContext()
+    {
+        this(new HashMap<String, Object>());
+    }
+
+    public TestExternalContext(Map<String, Object> sessionMap)
+    {
+        super(null);
+        this.sessionMap = sessionMap;
+    }
+
+    @Override
+    public Map<String, Object> getSessionMap()
+    {
+        return this.sessionMap;
+    }
+
+    @Override
+    public Map<String, Object> getRequestMap()
+    {
+        return this.requestMap;
+    }
+
+    @Override
+    public Map<String, String> getRequestParameterMap()
+    {
+        return this.requestParameterMap;
+    }
+
+    @Override
+    public String encodeActionURL(String url)
+    {
+        return url;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.test.util;
+
+import javax.faces.component.UIComponent;
+import javax.faces.context.ResponseWriter;
+import java.io.Writer;
+
+/**
+ * response-writer which renders elements without attributes into a {@link StringBuilder}
+ *
+ * @author Gerhard Petracek
+ */
+public class TestResponseWriter extends ResponseWriter
+{
+    private final StringBuilder output = new StringBuilder();
+
+    private boolean startTagOpen;
+
+    public String getOutput()
+    {
+        return this.output.toString();
+    }
+
+    public void startElement(String name, UIComponent component)
+    {
+        closeStartTag();
+        this.output.append('<').append(name);
+        this.startTagOpen = true;
+    }
+
+    public void endElement(String name)
+    {
+        closeStartTag();
+        this.output.append("</").append(name).append('>');
+    }
+
+    public void writeText(Object text, String property)
+    {
+        closeStartTag();
+        this.output.append(text);
+    }
+
+    public void writeText(char[] text, int off, int len)
+    {
+        closeStartTag();
+        this.output.append(text, off, len);
+    }
+
+    public void write(char[] cbuf, int off, int len)
+    {
+        closeStartTag();
+        this.output.append(cbuf, off, len);
+    }
+
+    public void writeAttribute(String name, Object value, String property)
+    {
+    }
+
+    public void writeURIAttribute(String name, Object value, String property)
+    {
+    }
+
+    public void writeComment(Object comment)
+    {
+    }
+
+    public String getContentType()
+    {
+        return "text/html";
+    }
+
+    public String getCharacterEncoding()
+    {
+        return "UTF-8";
+    }
+
+    public void startDocument()
+    {
+    }
+
+    public void endDocument()
+    {
+    }
+
+    public void flush()
+    {
+    }
+
+    public void close()
+    {
+    }
+
+    public ResponseWriter cloneWithWriter(Writer writer)
+    {
+        return new TestResponseWriter();
+    }
+
+    private void closeStartTag()
+    {
+        if(this.startTagOpen)
+        {
+            this.output.append('>');
+            this.startTagOpen = false;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view;
+
+import org.apache.myfaces.extensions.cdi.core.api.view.definition.ViewDefinition;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.view.definition.Page;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Optional annotation processor which creates the view-ids of all {@link Page} classes during the build
+ * and stores them in META-INF/extcdi/view-config.properties.
+ * The {@link ViewDefinitionExtension} uses this index instead of creating the view-ids.
+ * The entries of an existing index (e.g. of a previous incremental build) are re-created based on the
+ * compiled classes, because a changed super-class might change the view-id of a class which wasn't re-compiled.
+ * It's a separate (build-only) artifact, because it requires java 6 - it gets registered via META-INF/services
+ * as soon as it's available on the compile classpath of an application.
+ *
+ * @author Gerhard Petracek
+ */
+//all types - the existing index also has to be refreshed if no page definition gets compiled
+@SupportedAnnotationTypes("*")
+public class ViewConfigIndexProcessor extends AbstractProcessor
+{
+    private final Properties viewConfigIndex = new Properties();
+
+    private boolean previousViewConfigIndexFound;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment)
+    {
+        if(roundEnvironment.processingOver())
+        {
+            refreshPreviousViewConfigIndex();
+            writeViewConfigIndex();
+            return false;
+        }
+
+        for(Element element : roundEnvironment.getElementsAnnotatedWith(Page.class))
+        {
+            if(isPageDefinition(element))
+            {
+                addPageDefinition((TypeElement)element);
+            }
+        }
+        return false;
+    }
+
+    //invalid page definitions are reported by the ViewDefinitionExtension
+    private boolean isPageDefinition(Element element)
+    {
+        if(element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT) ||
+                element.getAnnotation(Page.class) == null)
+        {
+            return false;
+        }
+
+        TypeElement viewDefinitionType =
+                this.processingEnv.getElementUtils().getTypeElement(ViewDefinition.class.getName());
+
+        return viewDefinitionType != null && this.processingEnv.getTypeUtils().isAssignable(
+                element.asType(), this.processingEnv.getTypeUtils().erasure(viewDefinitionType.asType()));
+    }
+
+    /**
+     * Re-creates the entries of the existing index for classes which weren't compiled by the current build.
+     * Entries of classes which don't exist any longer (or which aren't page definitions any longer) are dropped.
+     */
+    private void refreshPreviousViewConfigIndex()
+    {
+        Properties previousViewConfigIndex = readPreviousViewConfigIndex();
+
+        String className;
+        TypeElement pageDefinition;
+        for(String key : previousViewConfigIndex.stringPropertyNames())
+        {
+            if(!key.endsWith(PageDefinitionUtils.VIEW_ID_KEY_SUFFIX) || this.viewConfigIndex.containsKey(key))
+            {
+                continue;
+            }
+
+            className = key.substring(0, key.length() - PageDefinitionUtils.VIEW_ID_KEY_SUFFIX.length());
+            pageDefinition = this.processingEnv.getElementUtils().getTypeElement(className.replace('$', '.'));
+
+            if(pageDefinition != null && isPageDefinition(pageDefinition))
+            {
+                addPageDefinition(pageDefinition);
+            }
+        }
+    }
+
+    private Properties readPreviousViewConfigIndex()
+    {
+        Properties result = new Properties();
+
+        try
+        {
+            InputStream inputStream = this.processingEnv.getFiler()
+                    .getResource(StandardLocation.CLASS_OUTPUT, "", PageDefinitionUtils.VIEW_CONFIG_INDEX)
+                    .openInputStream();
+
+            try
+            {
+                result.load(inputStream);
+                this.previousViewConfigIndexFound = true;
+            }
+            finally
+            {
+                inputStream.close();
+            }
+        }
+        catch (IOException e)
+        {
+            //there is no previous index (e.g. a clean build)
+            result.clear();
+        }
+        return result;
+    }
+
+    private void addPageDefinition(TypeElement pageDefinition)
+    {
+        List<String> simpleClassNames = new ArrayList<String>();
+        List<Page> pageAnnotations = new ArrayList<Page>();
+
+        TypeElement currentType = pageDefinition;
+        TypeMirror superClass;
+        while(currentType != null && !Object.class.getName().equals(currentType.getQualifiedName().toString()))
+        {
+            simpleClassNames.add(currentType.getSimpleName().toString());
+            pageAnnotations.add(currentType.getAnnotation(Page.class));
+
+            superClass = currentType.getSuperclass();
+
+            if(superClass.getKind() == TypeKind.DECLARED)
+            {
+                currentType = (TypeElement)((DeclaredType)superClass).asElement();
+            }
+            else
+            {
+                currentType = null;
+            }
+        }
+
+        String className = this.processingEnv.getElementUtils().getBinaryName(pageDefinition).toString();
+
+        this.viewConfigIndex.setProperty(className + PageDefinitionUtils.VIEW_ID_KEY_SUFFIX,
+                PageDefinitionUtils.createViewId(className, simpleClassNames, pageAnnotations));
+        this.viewConfigIndex.setProperty(className + PageDefinitionUtils.NAVIGATION_MODE_KEY_SUFFIX,
+                PageDefinitionUtils.getNavigationMode(pageAnnotations).name());
+    }
+
+    private void writeViewConfigIndex()
+    {
+        //an existing index has to be replaced even if all page definitions were removed
+        if(this.viewConfigIndex.isEmpty() && !this.previousViewConfigIndexFound)
+        {
+            return;
+        }
+
+        try
+        {
+            FileObject indexFile = this.processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", PageDefinitionUtils.VIEW_CONFIG_INDEX);
+
+            OutputStream outputStream = indexFile.openOutputStream();
+
+            try
+            {
+                this.viewConfigIndex.store(outputStream, "generated by " + getClass().getName());
+            }
+            finally
+            {
+                outputStream.close();
+            }
+        }
+        catch (IOException e)
+        {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "failed to create " + PageDefinitionUtils.VIEW_CONFIG_INDEX + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf.impl.view;
+
+import org.apache.myfaces.extensions.cdi.core.api.view.definition.ViewDefinition;
+import org.apache.myfaces.extensions.cdi.javaee.jsf.api.view.definition.Page;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.enterprise.inject.Stereotype;
+import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * @author Gerhard Petracek
+ */
+public class ViewConfigIndexProcessorTest
+{
+    private static final String[] PAGE_DEFINITIONS = {
+            "Pages", "@Page(basePath = \"\") public interface Pages extends ViewDefinition {\n" +
+            "  @Page(name = \"start\", navigation = NavigationMode.REDIRECT)\n" +
+            "  public final class Home implements Pages {}\n" +
+            "  @Page(basePath = \"admin\") public interface Admin extends Pages {\n" +
+            "    @Page(basePath = \".\") public final class Users implements Admin {}\n" +
+            "  }\n" +
+            "}",
+            "BasePage", "@Page(extension = \"jsp\") public abstract class BasePage implements ViewDefinition {}",
+            "DerivedPage", "@Page public class DerivedPage extends BasePage {}"
+    };
+
+    private final ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
+
+    private File baseDirectory;
+
+    @BeforeMethod
+    public void createBaseDirectory() throws IOException
+    {
+        this.baseDirectory = File.createTempFile("view-config-index", "");
+        this.baseDirectory.delete();
+        this.baseDirectory.mkdirs();
+    }
+
+    @AfterMethod
+    public void cleanup()
+    {
+        Thread.currentThread().setContextClassLoader(this.originalClassLoader);
+        ViewDefinitionCache.reset();
+        delete(this.baseDirectory);
+    }
+
+    @Test
+    public void testIndexedViewDefinitionsMatchTheReflectiveOnes() throws Exception
+    {
+        List<File> sources = writeSources(PAGE_DEFINITIONS);
+
+        File indexedClasses = compile("indexed", true, sources);
+        File reflectiveClasses = compile("reflective", false, sources);
+
+        Properties viewConfigIndex = readViewConfigIndex(indexedClasses);
+        Assert.assertNull(readViewConfigIndex(reflectiveClasses));
+
+        //abstract page definitions aren't listed
+        Assert.assertEquals(viewConfigIndex.size(), 3 * 2);
+
+        String[] pageDefinitions = {"pages.Pages$Home", "pages.Pages$Admin$Users", "pages.DerivedPage"};
+
+        for (String pageDefinition : pageDefinitions)
+        {
+            ViewDefinitionEntry indexedEntry = bootstrap(indexedClasses, pageDefinition);
+            ViewDefinitionEntry reflectiveEntry = bootstrap(reflectiveClasses, pageDefinition);
+
+            Assert.assertEquals(indexedEntry.getViewId(), reflectiveEntry.getViewId());
+            Assert.assertEquals(indexedEntry.getNavigationMode(), reflectiveEntry.getNavigationMode());
+            Assert.assertEquals(indexedEntry.getViewId(),
+                    viewConfigIndex.getProperty(pageDefinition + PageDefinitionUtils.VIEW_ID_KEY_SUFFIX));
+        }
+
+        Assert.assertEquals(viewConfigIndex.getProperty("pages.Pages$Home.viewId"), "/start.xhtml");
+        Assert.assertEquals(viewConfigIndex.getProperty("pages.Pages$Home.navigation"), "REDIRECT");
+        Assert.assertEquals(viewConfigIndex.getProperty("pages.DerivedPage.viewId"), "/derivedPage.jsp");
+    }
+
+    @Test
+    public void testIndexOfAnIncrementalBuildIsRefreshed() throws Exception
+    {
+        List<File> sources = writeSources(PAGE_DEFINITIONS);
+        File classes = compile("classes", true, sources);
+
+        //just the super-class gets re-compiled
+        List<File> changedSources = writeSources("BasePage",
+                "@Page(extension = \"jsf\") public abstract class BasePage implements ViewDefinition {}");
+        compile("classes", true, changedSources);
+
+        Properties viewConfigIndex = readViewConfigIndex(classes);
+
+        Assert.assertEquals(viewConfigIndex.getProperty("pages.DerivedPage.viewId"), "/derivedPage.jsf");
+        Assert.assertNotNull(viewConfigIndex.getProperty("pages.Pages$Home.viewId"));
+    }
+
+    @Test
+    public void testEntriesOfRemovedPageDefinitionsAreDropped() throws Exception
+    {
+        List<File> sources = writeSources(PAGE_DEFINITIONS);
+        File classes = compile("classes", true, sources);
+
+        Assert.assertTrue(new File(classes, "pages/DerivedPage.class").delete());
+
+        //the page definition isn't annotated any longer
+        compile("classes", true, writeSources("BasePage", "public abstract class BasePage {}"));
+
+        Properties viewConfigIndex = readViewConfigIndex(classes);
+
+        Assert.assertNull(viewConfigIndex.getProperty("pages.DerivedPage.viewId"));
+        Assert.assertNotNull(viewConfigIndex.getProperty("pages.Pages$Home.viewId"));
+    }
+
+    private ViewDefinitionEntry bootstrap(File classes, String pageDefinition) throws Exception
+    {
+        ClassLoader classLoader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, this.originalClassLoader);
+        Thread.currentThread().setContextClassLoader(classLoader);
+
+        try
+        {
+            ViewDefinitionExtension viewDefinitionExtension = new ViewDefinitionExtension();
+            viewDefinitionExtension.loadViewConfigIndex(null);
+            viewDefinitionExtension.processPageDefinitions(createProcessAnnotatedType(
+                    classLoader.loadClass(pageDefinition)));
+            viewDefinitionExtension.publishViewDefinitions(null);
+
+            //noinspection unchecked
+            return ViewDefinitionCache.getViewDefinition(
+                    (Class<? extends ViewDefinition>) classLoader.loadClass(pageDefinition));
+        }
+        finally
+        {
+            ViewDefinitionCache.reset();
+            Thread.currentThread().setContextClassLoader(this.originalClassLoader);
+        }
+    }
+
+    private ProcessAnnotatedType createProcessAnnotatedType(final Class<?> javaClass)
+    {
+        final AnnotatedType annotatedType = (AnnotatedType) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{AnnotatedType.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("isAnnotationPresent".equals(method.getName()))
+                        {
+                            //noinspection unchecked
+                            return javaClass.isAnnotationPresent((Class) args[0]);
+                        }
+                        return javaClass;
+                    }
+                });
+
+        return (ProcessAnnotatedType) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ProcessAnnotatedType.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("getAnnotatedType".equals(method.getName()))
+                        {
+                            return annotatedType;
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private List<File> writeSources(String... classNamesAndBodies) throws IOException
+    {
+        File sourceDirectory = new File(this.baseDirectory, "src/pages");
+        sourceDirectory.mkdirs();
+
+        List<File> result = new ArrayList<File>();
+        File source;
+        Writer writer;
+        for (int i = 0; i < classNamesAndBodies.length; i += 2)
+        {
+            source = new File(sourceDirectory, classNamesAndBodies[i] + ".java");
+            writer = new FileWriter(source);
+
+            try
+            {
+                writer.write("package pages;\n" +
+                        "import org.apache.myfaces.extensions.cdi.core.api.view.definition.ViewDefinition;\n" +
+                        "import org.apache.myfaces.extensions.cdi.javaee.jsf.api.view.definition.*;\n" +
+                        classNamesAndBodies[i + 1]);
+            }
+            finally
+            {
+                writer.close();
+            }
+            result.add(source);
+        }
+        return result;
+    }
+
+    private File compile(String outputDirectoryName, boolean useProcessor, List<File> sources) throws IOException
+    {
+        File outputDirectory = new File(this.baseDirectory, outputDirectoryName);
+        outputDirectory.mkdirs();
+
+        //the compiled classes are used for an incremental build
+        String classPath = outputDirectory.getPath() + File.pathSeparator +
+                getLocation(ViewDefinition.class) + File.pathSeparator +
+                getLocation(Page.class) + File.pathSeparator +
+                getLocation(Stereotype.class);
+
+        List<String> options = new ArrayList<String>(Arrays.asList(
+                "-d", outputDirectory.getPath(), "-classpath", classPath));
+
+        if (!useProcessor)
+        {
+            options.add("-proc:none");
+        }
+
+        JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = javaCompiler.getStandardFileManager(null, null, null);
+
+        try
+        {
+            JavaCompiler.CompilationTask compilationTask = javaCompiler.getTask(null, fileManager, null, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(sources));
+
+            if (useProcessor)
+            {
+                compilationTask.setProcessors(Collections.singleton(new ViewConfigIndexProcessor()));
+            }
+
+            Assert.assertTrue(compilationTask.call());
+        }
+        finally
+        {
+            fileManager.close();
+        }
+        return outputDirectory;
+    }
+
+    private String getLocation(Class<?> type)
+    {
+        try
+        {
+            return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        }
+        catch (Exception e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Properties readViewConfigIndex(File classes) throws IOException
+    {
+        File indexFile = new File(classes, PageDefinitionUtils.VIEW_CONFIG_INDEX);
+
+        if (!indexFile.exists())
+        {
+            return null;
+        }
+
+        Properties result = new Properties();
+        InputStream inputStream = new FileInputStream(indexFile);
+
+        try
+        {
+            result.load(inputStream);
+        }
+        finally
+        {
+            inputStream.close();
+        }
+        return result;
+    }
+
+    private void delete(File file)
+    {
+        File[] children = file.listFiles();
+
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -41,6 +41,11 @@ class CodiFacesContextWrapper extends FacesContextWrapper
 
     private BeforeAfterFacesRequestBroadcaster beforeAfterFacesRequestBroadcaster;
 
+    //jsf calls #getExternalContext very often - one wrapper per (wrapped) external context is enough
+    private ExternalContext wrappedExternalContext;
+
+    private ExternalContext externalContext;
+
     CodiFacesContextWrapper(FacesContext wrappedFacesContext)
     {
         this.wrappedFacesContext = wrappedFacesContext;
@@ -76,7 +81,14 @@ class CodiFacesContextWrapper extends FacesContextWrapper
 
     public ExternalContext getExternalContext()
     {
-        return new RedirectedConversationAwareExternalContext(wrappedFacesContext.getExternalContext());
+        ExternalContext currentExternalContext = wrappedFacesContext.getExternalContext();
+
+        if(this.externalContext == null || this.wrappedExternalContext != currentExternalContext)
+        {
+            this.wrappedExternalContext = currentExternalContext;
+            this.externalContext = new RedirectedConversationAwareExternalContext(currentExternalContext);
+        }
+        return this.externalContext;
     }
 
     public void release()
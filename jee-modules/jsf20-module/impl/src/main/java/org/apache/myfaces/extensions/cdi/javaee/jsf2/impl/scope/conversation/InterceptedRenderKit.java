@@ -20,6 +20,8 @@ package org.apache.myfaces.extensions.cdi.javaee.jsf2.impl.scope.conversation;
 
 import static org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ConversationUtils
         .addWindowContextIdHolderComponent;
+import static org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ConversationUtils
+        .getJsfAwareWindowContextConfig;
 
 import javax.faces.render.RenderKit;
 import javax.faces.render.ClientBehaviorRenderer;
@@ -38,6 +40,8 @@ class InterceptedRenderKit extends RenderKit
 {
     private final RenderKit wrapped;
 
+    private volatile Boolean windowIdStreamingEnabled;
+
     InterceptedRenderKit(RenderKit wrapped)
     {
         this.wrapped = wrapped;
@@ -60,9 +64,20 @@ class InterceptedRenderKit extends RenderKit
 
     public ResponseWriter createResponseWriter(Writer writer, String s, String s1)
     {
-        addWindowContextIdHolderComponent();
+        if(!isWindowIdStreamingEnabled())
+        {
+            addWindowContextIdHolderComponent();
+
+            return this.wrapped.createResponseWriter(writer, s, s1);
+        }
+
+        ResponseWriter responseWriter = this.wrapped.createResponseWriter(writer, s, s1);
 
-        return this.wrapped.createResponseWriter(writer, s, s1);
+        if(responseWriter == null)
+        {
+            return null;
+        }
+        return new InterceptedResponseWriter(responseWriter);
     }
 
     public ClientBehaviorRenderer getClientBehaviorRenderer(String s)
@@ -94,4 +109,13 @@ class InterceptedRenderKit extends RenderKit
     {
         return wrapped.getResponseStateManager();
     }
+
+    private boolean isWindowIdStreamingEnabled()
+    {
+        if(this.windowIdStreamingEnabled == null)
+        {
+            this.windowIdStreamingEnabled = getJsfAwareWindowContextConfig().isWindowIdStreamingEnabled();
+        }
+        return this.windowIdStreamingEnabled;
+    }
 }
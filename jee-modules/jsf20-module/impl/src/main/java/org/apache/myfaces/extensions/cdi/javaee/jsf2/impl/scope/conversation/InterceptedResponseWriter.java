@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf2.impl.scope.conversation;
+
+import static org.apache.myfaces.extensions.cdi.javaee.jsf.impl.util.ConversationUtils.getWindowIdHiddenField;
+
+import javax.faces.component.UIComponent;
+import javax.faces.component.UIForm;
+import javax.faces.context.ResponseWriter;
+import javax.faces.context.ResponseWriterWrapper;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the window-id as hidden field into every form which gets rendered by an {@link UIForm}
+ * (see {@link org.apache.myfaces.extensions.cdi.javaee.jsf.api.ConfigParameter#WINDOW_ID_STREAMING_ENABLED}).
+ *
+ * @author Gerhard Petracek
+ */
+class InterceptedResponseWriter extends ResponseWriterWrapper
+{
+    private final ResponseWriter wrapped;
+
+    //forms can't be nested - so it isn't required to track the depth
+    private boolean uiFormStarted;
+
+    InterceptedResponseWriter(ResponseWriter wrapped)
+    {
+        this.wrapped = wrapped;
+    }
+
+    @Override
+    public void startElement(String name, UIComponent component)
+            throws IOException
+    {
+        if(component instanceof UIForm && "form".equalsIgnoreCase(name))
+        {
+            this.uiFormStarted = true;
+        }
+
+        this.wrapped.startElement(name, component);
+    }
+
+    @Override
+    public void endElement(String name)
+            throws IOException
+    {
+        if(this.uiFormStarted && "form".equalsIgnoreCase(name))
+        {
+            this.uiFormStarted = false;
+
+            char[] hiddenField = getWindowIdHiddenField();
+            this.wrapped.write(hiddenField, 0, hiddenField.length);
+        }
+
+        this.wrapped.endElement(name);
+    }
+
+    @Override
+    public ResponseWriter cloneWithWriter(Writer writer)
+    {
+        return new InterceptedResponseWriter(this.wrapped.cloneWithWriter(writer));
+    }
+
+    public ResponseWriter getWrapped()
+    {
+        return this.wrapped;
+    }
+}
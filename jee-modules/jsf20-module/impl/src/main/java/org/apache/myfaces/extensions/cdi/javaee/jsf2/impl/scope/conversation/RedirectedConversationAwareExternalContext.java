@@ -69,7 +69,8 @@ public class RedirectedConversationAwareExternalContext extends ExternalContextW
         return this.wrapped.encodeActionURL(s);
     }
 
-    private synchronized void lazyInit()
+    //the instance is bound to the faces-context of the current request - no synchronization needed
+    private void lazyInit()
     {
         if(this.windowHandler == null)
         {
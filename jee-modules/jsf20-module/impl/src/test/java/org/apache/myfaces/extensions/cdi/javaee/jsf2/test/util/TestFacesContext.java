@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.javaee.jsf2.test.util;
+
+import javax.faces.application.Application;
+import javax.faces.application.FacesMessage;
+import javax.faces.component.UIViewRoot;
+import javax.faces.context.ExternalContext;
+import javax.faces.context.FacesContext;
+import javax.faces.context.ResponseStream;
+import javax.faces.context.ResponseWriter;
+import javax.faces.render.RenderKit;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * faces-context which doesn't require a running jsf implementation.
+ * it's the current instance until {@link #release()} gets called.
+ *
+ * @author Gerhard Petracek
+ */
+public class TestFacesContext extends FacesContext
+{
+    private ExternalContext externalContext;
+
+    private UIViewRoot viewRoot;
+
+    private ResponseWriter responseWriter;
+
+    public TestFacesContext(ExternalContext externalContext)
+    {
+        this.externalContext = externalContext;
+        setCurrentInstance(this);
+    }
+
+    public ExternalContext getExternalContext()
+    {
+        return this.externalContext;
+    }
+
+    public void setExternalContext(ExternalContext externalContext)
+    {
+        this.externalContext = externalContext;
+    }
+
+    public UIViewRoot getViewRoot()
+    {
+        return this.viewRoot;
+    }
+
+    public void setViewRoot(UIViewRoot viewRoot)
+    {
+        this.viewRoot = viewRoot;
+    }
+
+    public ResponseWriter getResponseWriter()
+    {
+        return this.responseWriter;
+    }
+
+    public void setResponseWriter(ResponseWriter responseWriter)
+    {
+        this.responseWriter = responseWriter;
+    }
+
+    public void release()
+    {
+        setCurrentInstance(null);
+    }
+
+    public Application getApplication()
+    {
+        return null;
+    }
+
+    public Iterator<String> getClientIdsWithMessages()
+    {
+        return Collections.<String>emptyList().iterator();
+    }
+
+    public FacesMessage.Severity getMaximumSeverity()
+    {
+        return null;
+    }
+
+    public Iterator<FacesMessage> getMessages()
+    {
+        return Collections.<FacesMessage>emptyList().iterator();
+    }
+
+    public Iterator<FacesMessage> getMessages(String clientId)
+    {
+        return Collections.<FacesMessage>emptyList().iterator();
+    }
+
+    public RenderKit getRenderKit()
+    {
+        return null;
+    }
+
+    public boolean getRenderResponse()
+    {
+        return false;
+    }
+
+    public boolean getResponseComplete()
+    {
+        return false;
+    }
+
+    public ResponseStream getResponseStream()
+    {
+        return null;
+    }
+
+    public void setResponseStream(ResponseStream responseStream)
+    {
+    }
+
+    public void addMessage(String clientId, FacesMessage facesMessage)
+    {
+    }
+
+    public void renderResponse()
+    {
+    }
+
+    public void responseComplete()
+    {
+    }
+}